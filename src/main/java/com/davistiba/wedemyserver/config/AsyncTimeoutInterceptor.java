@@ -0,0 +1,40 @@
+package com.davistiba.wedemyserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets one handler raise the async timeout of its own request (e.g. a long StreamingResponseBody),
+ * while every other async request keeps the default spring.mvc.async.request-timeout.
+ */
+public class AsyncTimeoutInterceptor implements CallableProcessingInterceptor {
+
+    private static final String TIMEOUT = AsyncTimeoutInterceptor.class.getName() + ".TIMEOUT";
+
+    /**
+     * Call from a handler, before returning its async result
+     *
+     * @param timeout for this request only
+     */
+    public static void setTimeout(@NotNull Duration timeout) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(TIMEOUT, timeout, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    public <T> void beforeConcurrentHandling(@NotNull NativeWebRequest request, @NotNull Callable<T> task) {
+        Object timeout = request.getAttribute(TIMEOUT, RequestAttributes.SCOPE_REQUEST);
+        if (timeout instanceof Duration && request instanceof AsyncWebRequest) {
+            ((AsyncWebRequest) request).setTimeout(((Duration) timeout).toMillis()); //<-- before async starts
+        }
+    }
+}
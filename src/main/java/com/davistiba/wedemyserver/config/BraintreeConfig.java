@@ -2,31 +2,33 @@ package com.davistiba.wedemyserver.config;
 
 import com.braintreegateway.BraintreeGateway;
 import com.braintreegateway.Environment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.core.env.StandardEnvironment;
 
-import java.util.Objects;
+import java.time.Duration;
 
 /*
  * READ OFFICIAL DOCS
  * https://developer.paypal.com/braintree/docs/start/hello-server/java
+ * Only loaded when payment.gateway is braintree, so other gateways need no BT_* variables.
  */
 @Configuration
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "braintree", matchIfMissing = true)
 public class BraintreeConfig {
-    //Get ENV variables
-    private static final org.springframework.core.env.Environment ENV = new StandardEnvironment();
-
-    private static final BraintreeGateway gateway = new BraintreeGateway(
-            Environment.SANDBOX, //<--(dev mode)
-            //ensure not NULL!
-            Objects.requireNonNull(ENV.getProperty("BT_MERCHANT_ID"), "BT_MERCHANT_ID is null"),
-            Objects.requireNonNull(ENV.getProperty("BT_PUBLIC_KEY"), "BT_PUBLIC_KEY is null"),
-            Objects.requireNonNull(ENV.getProperty("BT_PRIVATE_KEY"), "BT_PRIVATE_KEY is null")
-    );
 
     @Bean
-    public static BraintreeGateway getGateway() {
+    public BraintreeGateway braintreeGateway(@Value("${braintree.environment:sandbox}") String environment, //<--(dev mode)
+                                             //Get ENV variables. Startup fails if missing
+                                             @Value("${BT_MERCHANT_ID}") String merchantId,
+                                             @Value("${BT_PUBLIC_KEY}") String publicKey,
+                                             @Value("${BT_PRIVATE_KEY}") String privateKey,
+                                             @Value("${payment.timeout.sale:PT10S}") Duration timeout) {
+        BraintreeGateway gateway = new BraintreeGateway(Environment.parseEnvironment(environment), merchantId, publicKey, privateKey);
+        // callers stop waiting after timeout anyway; this also frees the gateway thread
+        gateway.getConfiguration().setTimeout((int) timeout.toMillis());
+        gateway.getConfiguration().setConnectTimeout((int) Math.min(timeout.toMillis(), 5000));
         return gateway;
     }
 }
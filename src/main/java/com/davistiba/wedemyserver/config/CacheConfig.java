@@ -0,0 +1,82 @@
+package com.davistiba.wedemyserver.config;
+
+import com.davistiba.wedemyserver.service.CheckoutWorker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Redis is the shared cache. Course catalog caches get an extra local tier on each node,
+ * kept in sync through Redis pub/sub.
+ */
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    /* these caches are read on nearly every page, so keep a copy in-process */
+    private static final Set<String> LOCAL_CACHES = Set.of("courses", "featured-courses", "course-categories",
+            "course-outlines");
+
+    @Value(value = "${local-cache.max-size:1000}")
+    private long localMaxSize;
+
+    @Value(value = "${local-cache.time-to-live:PT5M}")
+    private Duration localTtl;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                            RedisTemplate<Object, Object> redisTemplate,
+                                            CacheProperties cacheProperties) {
+        CacheProperties.Redis redisProperties = cacheProperties.getRedis();
+        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig();
+        if (redisProperties.getTimeToLive() != null) {
+            config = config.entryTtl(redisProperties.getTimeToLive());
+        }
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(config)
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(redisCacheManager, redisTemplate,
+                LOCAL_CACHES, localMaxSize, localTtl);
+        cacheManager.setTransactionAware(true); //<-- only evict AFTER commit
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListener(RedisConnectionFactory connectionFactory,
+                                                              TwoTierCacheManager cacheManager,
+                                                              CourseChangeRelay courseChangeRelay,
+                                                              CheckoutWorker checkoutWorker) {
+        JdkSerializationRedisSerializer serializer = new JdkSerializationRedisSerializer();
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            Object body = serializer.deserialize(message.getBody());
+            if (body instanceof CacheInvalidation) cacheManager.onInvalidation((CacheInvalidation) body);
+        }, new ChannelTopic(TwoTierCacheManager.INVALIDATION_CHANNEL));
+        // a course was modified on another node. Let local listeners (e.g. search index) know
+        container.addMessageListener((message, pattern) -> {
+            Object body = serializer.deserialize(message.getBody());
+            if (body instanceof CacheInvalidation) courseChangeRelay.onMessage((CacheInvalidation) body);
+        }, new ChannelTopic(CourseChangeRelay.CHANNEL));
+        // a checkout finished, maybe on another node. Answer long-polls waiting here
+        container.addMessageListener((message, pattern) ->
+                checkoutWorker.onFinished(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(CheckoutWorker.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,31 @@
+package com.davistiba.wedemyserver.config;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+/**
+ * [NOT A TABLE]
+ * Message sent over Redis pub/sub, telling every node to drop a local cache entry.
+ * A NULL key means clear the whole cache.
+ * Also used by {@link CourseChangeRelay}, where key is the modified courseId.
+ */
+@Getter
+@ToString
+public class CacheInvalidation implements Serializable {
+
+    private static final long serialVersionUID = 4412397250387164221L;
+
+    private final String origin;
+
+    private final String cacheName;
+
+    private final Object key;
+
+    public CacheInvalidation(String origin, String cacheName, Object key) {
+        this.origin = origin;
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+}
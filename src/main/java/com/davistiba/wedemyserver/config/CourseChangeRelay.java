@@ -0,0 +1,49 @@
+package com.davistiba.wedemyserver.config;
+
+import com.davistiba.wedemyserver.models.CourseChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Forwards {@link CourseChangedEvent} to the other nodes (Redis pub/sub), after commit.
+ * Only real changes go out, never cache fills. Received ones are re-published locally.
+ */
+@Slf4j
+@Component
+public class CourseChangeRelay {
+
+    public static final String CHANNEL = "wedemy:course-changed";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Autowired
+    private RedisTemplate<Object, Object> redisTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(@NotNull CourseChangedEvent event) {
+        if (event.getSource() == this) return; //came from another node
+        try {
+            redisTemplate.convertAndSend(CHANNEL, new CacheInvalidation(nodeId, "courses", event.getCourseId()));
+        } catch (Exception e) {
+            log.warn("Could not publish change of course {}: {}", event.getCourseId(), e.getMessage());
+        }
+    }
+
+    /**
+     * @param message received from Redis channel (any node, including ourselves)
+     */
+    public void onMessage(@NotNull CacheInvalidation message) {
+        if (nodeId.equals(message.getOrigin()) || !(message.getKey() instanceof Integer)) return;
+        eventPublisher.publishEvent(new CourseChangedEvent(this, (Integer) message.getKey()));
+    }
+}
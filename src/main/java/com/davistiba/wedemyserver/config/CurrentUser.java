@@ -0,0 +1,16 @@
+package com.davistiba.wedemyserver.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Controller parameter: the logged-in User, resolved once per request.
+ * See {@link CurrentUserArgumentResolver}. Treat it as read-only
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+
+    /* if true (default), not logged in means 401. Else NULL */
+    boolean required() default true;
+}
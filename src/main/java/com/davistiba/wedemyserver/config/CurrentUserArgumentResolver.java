@@ -0,0 +1,70 @@
+package com.davistiba.wedemyserver.config;
+
+import com.davistiba.wedemyserver.models.User;
+import com.davistiba.wedemyserver.service.MyUserDetailsService;
+import com.davistiba.wedemyserver.service.UserCache;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import java.util.Optional;
+
+/**
+ * Resolves {@link CurrentUser} parameters: userId from session (set at login, local or Google),
+ * else from the security principal. Looked up through {@link UserCache}, at most once per request.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    @Autowired
+    private UserCache userCache;
+
+    @Override
+    public boolean supportsParameter(@NotNull MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class) && User.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(@NotNull MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  @NotNull NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object memo = webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (memo instanceof User) return memo;
+
+        User user = this.findUser(webRequest.getNativeRequest(HttpServletRequest.class)).orElse(null);
+        if (user == null) {
+            CurrentUser annotation = parameter.getParameterAnnotation(CurrentUser.class);
+            if (annotation != null && annotation.required()) {
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Please login first");
+            }
+            return null;
+        }
+        webRequest.setAttribute(ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+
+    private Optional<User> findUser(HttpServletRequest request) {
+        HttpSession session = request == null ? null : request.getSession(false);
+        Integer userId = session == null ? null : MyUserDetailsService.getSessionUserId(session);
+        if (userId == null) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof User) {
+                userId = ((User) auth.getPrincipal()).getId();
+            }
+        }
+        return userCache.get(userId);
+    }
+}
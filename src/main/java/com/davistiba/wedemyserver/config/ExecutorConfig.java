@@ -0,0 +1,93 @@
+package com.davistiba.wedemyserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated, bounded thread pools. Keeps background or fan-out work off Tomcat threads,
+ * and stops one slow dependency from eating all threads.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value(value = "${executor.course-detail.pool-size:16}")
+    private int courseDetailPoolSize;
+
+    @Value(value = "${executor.checkout.pool-size:8}")
+    private int checkoutPoolSize;
+
+    @Value(value = "${executor.checkout.queue-capacity:200}")
+    private int checkoutQueueCapacity;
+
+    @Value(value = "${executor.payment-gateway.pool-size:20}")
+    private int paymentGatewayPoolSize;
+
+    @Value(value = "${executor.payment-gateway.queue-capacity:10}")
+    private int paymentGatewayQueueCapacity;
+
+    /**
+     * Spring Boot's default executor (for @Async, MVC async). Declaring any other Executor
+     * bean switches off the auto-configured one, so we re-declare it here.
+     */
+    @Lazy
+    @Primary
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * For parallel sub-queries of /courses/{id}/detail.
+     * When full, caller runs the task itself (natural back-pressure)
+     */
+    @Bean
+    public ThreadPoolTaskExecutor courseDetailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(courseDetailPoolSize);
+        executor.setMaxPoolSize(courseDetailPoolSize);
+        executor.setQueueCapacity(courseDetailPoolSize * 4);
+        executor.setThreadNamePrefix("course-detail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Runs async checkouts (gateway call + DB). Bounded queue: when full,
+     * new checkouts are rejected rather than queued for minutes
+     */
+    @Bean
+    public ThreadPoolTaskExecutor checkoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(checkoutPoolSize);
+        executor.setMaxPoolSize(checkoutPoolSize);
+        executor.setQueueCapacity(checkoutQueueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Bulkhead for payment gateway calls: at most pool-size calls in flight.
+     * When full, calls are rejected at once instead of tying up more request threads
+     */
+    @Bean
+    public ThreadPoolTaskExecutor paymentGatewayExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(paymentGatewayPoolSize);
+        executor.setMaxPoolSize(paymentGatewayPoolSize);
+        executor.setQueueCapacity(paymentGatewayQueueCapacity);
+        executor.setThreadNamePrefix("payment-gateway-");
+        return executor;
+    }
+}
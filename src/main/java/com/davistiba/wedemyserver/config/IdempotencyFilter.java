@@ -0,0 +1,276 @@
+package com.davistiba.wedemyserver.config;
+
+import com.davistiba.wedemyserver.dto.IdempotentResponse;
+import com.davistiba.wedemyserver.service.MyUserDetailsService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Honors the `Idempotency-Key` header on mutating endpoints that clients retry.
+ * First request with a key runs; its response is stored in Redis (idempotency.time-to-live).
+ * Retries get the stored response, without running again.
+ * A retry arriving while the first is still running waits for it (on any node), polling Redis.
+ * That wait holds a request thread, so it is short (idempotency.wait-timeout); after it the retry gets 409.
+ * Error responses (4xx/5xx) are not stored, so the request can be retried for real,
+ * unless the handler called {@link #markIrreversible()} first (e.g. card was sent to the gateway).
+ * Then the error is stored and replayed too, since running again could charge twice.
+ * Keys are per user; same key with a different body is rejected (422).
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final List<String> PATHS = List.of("/checkout/complete", "/checkout/submit",
+            "/cart/course/*", "/enroll/watched");
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+
+    private static final long POLL_MILLIS = 50;
+
+    private static final String IRREVERSIBLE = IdempotencyFilter.class.getName() + ".IRREVERSIBLE";
+
+    /* managed by the container (or security filters, which run again on replay) */
+    private static final Set<String> SKIPPED_HEADERS = Set.of(HttpHeaders.CONTENT_TYPE.toLowerCase(),
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(), HttpHeaders.TRANSFER_ENCODING.toLowerCase(),
+            HttpHeaders.DATE.toLowerCase(), HttpHeaders.SET_COOKIE.toLowerCase());
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value(value = "${idempotency.time-to-live:PT24H}")
+    private Duration timeToLive;
+
+    /* a running request holds its key this long at most (e.g. node died midway) */
+    @Value(value = "${idempotency.in-progress-time-to-live:PT1M}")
+    private Duration inProgressTtl;
+
+    @Value(value = "${idempotency.wait-timeout:PT3S}")
+    private Duration waitTimeout;
+
+    /**
+     * Call from a handler right before an effect that must not run twice (e.g. charging a card).
+     * From then on, the response is kept for replay even if it is an error. No-op outside a request.
+     */
+    public static void markIrreversible() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(IRREVERSIBLE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NotNull HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod())
+                || request.getHeader(HEADER) == null
+                || PATHS.stream().noneMatch(p -> MATCHER.match(p, request.getServletPath()));
+    }
+
+    @Override
+    protected void doFilterInternal(@NotNull HttpServletRequest request, @NotNull HttpServletResponse response,
+                                    @NotNull FilterChain chain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(HEADER);
+        HttpSession session = request.getSession(false);
+        Integer userId = session == null ? null : MyUserDetailsService.getSessionUserId(session);
+        if (userId == null || idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            chain.doFilter(request, response); //not logged in or unusable key: no protection, as before
+            return;
+        }
+
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String requestHash = DigestUtils.md5DigestAsHex(body);
+        String key = String.format("idempotency:%d:%s:%s", userId, request.getServletPath(), idempotencyKey);
+
+        Boolean acquired = redisTemplate.opsForValue()
+                .setIfAbsent(key, this.toJson(IdempotentResponse.inProgress(requestHash)), inProgressTtl);
+        if (!Boolean.TRUE.equals(acquired)) {
+            this.replay(key, requestHash, response);
+            return;
+        }
+
+        ErrorCapturingResponse cachingResponse = new ErrorCapturingResponse(response);
+        boolean finished = false;
+        try {
+            chain.doFilter(new CachedBodyRequest(request, body), cachingResponse);
+            finished = true;
+        } finally {
+            int status = finished ? cachingResponse.getStatus() : HttpStatus.INTERNAL_SERVER_ERROR.value();
+            boolean irreversible = request.getAttribute(IRREVERSIBLE) != null;
+            if (!request.isAsyncStarted() && ((finished && status < 400) || irreversible)) {
+                String errorMessage = finished ? cachingResponse.errorMessage
+                        : "Request failed midway. Please contact support before trying again";
+                IdempotentResponse completed = new IdempotentResponse(true, requestHash, status,
+                        cachingResponse.getContentType(),
+                        new String(cachingResponse.getContentAsByteArray(), StandardCharsets.UTF_8),
+                        this.getHeaders(cachingResponse), status >= 400 ? errorMessage : null);
+                redisTemplate.opsForValue().set(key, this.toJson(completed), timeToLive);
+            } else {
+                redisTemplate.delete(key); //let retries run again
+            }
+            cachingResponse.copyBodyToResponse();
+        }
+    }
+
+    /* same key seen before: wait until it finished (blocks this thread up to waitTimeout), then answer with its response */
+    private void replay(String key, String requestHash, HttpServletResponse response) throws IOException {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            String json = redisTemplate.opsForValue().get(key);
+            if (json == null) {
+                // first one failed or expired meanwhile. Client should retry
+                response.sendError(HttpStatus.CONFLICT.value(), "Previous request with this Idempotency-Key did not finish. Retry");
+                return;
+            }
+            IdempotentResponse stored = objectMapper.readValue(json, IdempotentResponse.class);
+            if (!stored.getRequestHash().equals(requestHash)) {
+                response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "Idempotency-Key was already used for another request");
+                return;
+            }
+            if (stored.isCompleted()) {
+                if (stored.getHeaders() != null) {
+                    stored.getHeaders().forEach((name, values) -> values.forEach(v -> response.addHeader(name, v)));
+                }
+                response.setHeader("Idempotent-Replayed", "true");
+                if (stored.getStatus() >= 400) {
+                    response.sendError(stored.getStatus(), stored.getErrorMessage()); //rendered like the original
+                    return;
+                }
+                response.setStatus(stored.getStatus());
+                if (stored.getContentType() != null) response.setContentType(stored.getContentType());
+                byte[] bytes = stored.getBody().getBytes(StandardCharsets.UTF_8);
+                response.setContentLength(bytes.length);
+                response.getOutputStream().write(bytes);
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                response.sendError(HttpStatus.CONFLICT.value(), "Request with this Idempotency-Key is still in progress");
+                return;
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for in-flight request");
+            }
+        }
+    }
+
+    @NotNull
+    private Map<String, List<String>> getHeaders(@NotNull HttpServletResponse response) {
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : new LinkedHashSet<>(response.getHeaderNames())) {
+            if (!SKIPPED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, new ArrayList<>(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    private String toJson(IdempotentResponse value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* also keeps the reason of sendError, which the error page renders later */
+    private static final class ErrorCapturingResponse extends ContentCachingResponseWrapper {
+        private String errorMessage;
+
+        ErrorCapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            this.errorMessage = msg;
+            super.sendError(sc, msg);
+        }
+    }
+
+    /* body was read to hash it, so hand the same bytes to the controller */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // whole body is in memory: available at once, then done
+                    try {
+                        if (!isFinished()) listener.onDataAvailable();
+                        if (isFinished()) listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(@NotNull byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
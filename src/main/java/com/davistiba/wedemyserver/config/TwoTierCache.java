@@ -0,0 +1,106 @@
+package com.davistiba.wedemyserver.config;
+
+import org.jetbrains.annotations.NotNull;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Local (in-process) near-cache sitting in front of the shared Redis cache.
+ * Reads hit local first, then Redis. Evictions are also broadcast, so that
+ * other nodes drop their local copy. Plain puts are not: they are cache fills,
+ * and other nodes' copies of the same value are still good.
+ */
+public class TwoTierCache implements Cache {
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local;
+
+    private final Cache remote;
+
+    private final TwoTierCacheManager manager;
+
+    public TwoTierCache(com.github.benmanes.caffeine.cache.Cache<Object, ValueWrapper> local,
+                        Cache remote,
+                        TwoTierCacheManager manager) {
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+
+    @NotNull
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @NotNull
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(@NotNull Object key) {
+        ValueWrapper wrapper = local.getIfPresent(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        wrapper = remote.get(key);
+        if (wrapper != null) {
+            local.put(key, new SimpleValueWrapper(wrapper.get()));
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull Object key, Class<T> type) {
+        ValueWrapper wrapper = this.get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NotNull Object key, @NotNull Callable<T> valueLoader) {
+        ValueWrapper wrapper = local.get(key, k -> new SimpleValueWrapper(remote.get(k, valueLoader)));
+        return wrapper != null ? (T) wrapper.get() : null;
+    }
+
+    @Override
+    public void put(@NotNull Object key, Object value) {
+        remote.put(key, value);
+        local.put(key, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public void evict(@NotNull Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        manager.publish(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publish(getName(), null);
+    }
+
+    /**
+     * Drop local copy only. Called when another node changed this entry
+     *
+     * @param key cache key, or NULL for all entries
+     */
+    public void evictLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.davistiba.wedemyserver.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Wraps the Redis CacheManager. Caches listed in {@code localCacheNames} get
+ * an extra in-process tier (bounded by size and TTL). All the others are plain Redis.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+
+    public static final String INVALIDATION_CHANNEL = "wedemy:cache-invalidation";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheManager remoteManager;
+
+    private final RedisTemplate<Object, Object> redisTemplate;
+
+    private final Set<String> localCacheNames;
+
+    private final long localMaxSize;
+
+    private final Duration localTtl;
+
+    public TwoTierCacheManager(CacheManager remoteManager,
+                               RedisTemplate<Object, Object> redisTemplate,
+                               Set<String> localCacheNames,
+                               long localMaxSize,
+                               Duration localTtl) {
+        this.remoteManager = remoteManager;
+        this.redisTemplate = redisTemplate;
+        this.localCacheNames = localCacheNames;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+    }
+
+    @NotNull
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected Cache getMissingCache(@NotNull String name) {
+        Cache remote = remoteManager.getCache(name);
+        if (remote == null || !localCacheNames.contains(name)) {
+            return remote;
+        }
+        return new TwoTierCache(Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .build(), remote, this);
+    }
+
+    /**
+     * Tell other nodes to drop their local copy
+     *
+     * @param cacheName name
+     * @param key       key, or NULL for all
+     */
+    void publish(String cacheName, Object key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, new CacheInvalidation(nodeId, cacheName, key));
+        } catch (Exception e) {
+            log.warn("Could not publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+
+    /**
+     * Handle invalidation sent by any node (including ourselves, which we skip)
+     *
+     * @param message from Redis channel
+     */
+    public void onInvalidation(@NotNull CacheInvalidation message) {
+        if (nodeId.equals(message.getOrigin()) || !localCacheNames.contains(message.getCacheName())) {
+            return;
+        }
+        Cache cache = this.lookupCache(message.getCacheName());
+        if (cache instanceof TransactionAwareCacheDecorator) {
+            cache = ((TransactionAwareCacheDecorator) cache).getTargetCache();
+        }
+        if (cache instanceof TwoTierCache) {
+            ((TwoTierCache) cache).evictLocal(message.getKey());
+        }
+    }
+}
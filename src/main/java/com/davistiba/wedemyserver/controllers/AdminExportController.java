@@ -0,0 +1,102 @@
+package com.davistiba.wedemyserver.controllers;
+
+import com.davistiba.wedemyserver.dto.ExportFormat;
+import com.davistiba.wedemyserver.service.ExportService;
+import com.davistiba.wedemyserver.config.AsyncTimeoutInterceptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Finance exports, streamed straight from DB to client.
+ * Example: /admin/export/sales?from=2023-01-01&to=2023-04-01&format=JSONL&gzip=true
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/admin/export")
+@Secured(value = "ROLE_ADMIN")
+public class AdminExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    /* async timeout of export requests only */
+    @Value(value = "${export.timeout:PT1H}")
+    private Duration timeout;
+
+    @GetMapping(path = "/sales")
+    public ResponseEntity<StreamingResponseBody> exportSales(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                             @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        Instant start = startOfDay(from), end = startOfDay(to);
+        return stream("sales", from, to, format, gzip, out -> exportService.writeSales(start, end, format, out));
+    }
+
+    @GetMapping(path = "/enrollments")
+    public ResponseEntity<StreamingResponseBody> exportEnrollments(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                   @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                   @RequestParam(defaultValue = "CSV") ExportFormat format,
+                                                                   @RequestParam(defaultValue = "false") boolean gzip) {
+        Instant start = startOfDay(from), end = startOfDay(to);
+        return stream("enrollments", from, to, format, gzip, out -> exportService.writeEnrollments(start, end, format, out));
+    }
+
+    /**
+     * Rows are written on an async thread, after headers are sent.
+     * So a failure midway can only cut the file short (logged), not change the status.
+     */
+    private ResponseEntity<StreamingResponseBody> stream(String name, LocalDate from, LocalDate to, ExportFormat format,
+                                                         boolean gzip, Exporter exporter) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        AsyncTimeoutInterceptor.setTimeout(timeout);
+        String filename = String.format("%s-%s-%s.%s%s", name, from, to, format.getExtension(), gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> {
+            try {
+                OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+                long rows = exporter.export(target);
+                if (gzip) ((GZIPOutputStream) target).finish();
+                log.info("Exported {} {} rows to {}", rows, name, filename);
+            } catch (IOException | RuntimeException e) {
+                log.error("Export {} stopped: {}", filename, e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private static Instant startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    @FunctionalInterface
+    private interface Exporter {
+        long export(OutputStream out) throws IOException;
+    }
+}
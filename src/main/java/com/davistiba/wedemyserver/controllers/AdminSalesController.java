@@ -0,0 +1,71 @@
+package com.davistiba.wedemyserver.controllers;
+
+import com.davistiba.wedemyserver.models.MyCustomResponse;
+import com.davistiba.wedemyserver.models.RollupDimension;
+import com.davistiba.wedemyserver.models.RollupGranularity;
+import com.davistiba.wedemyserver.models.SalesRollup;
+import com.davistiba.wedemyserver.repository.SalesRollupRepository;
+import com.davistiba.wedemyserver.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Sales reports. Read only from `sales_rollups`, never from `sales`
+ */
+@RestController
+@RequestMapping(path = "/admin/sales", produces = MediaType.APPLICATION_JSON_VALUE)
+@Secured(value = "ROLE_ADMIN")
+public class AdminSalesController {
+
+    /* hourly rows per request, per key */
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(93);
+
+    @Autowired
+    private SalesRollupRepository rollupRepository;
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    /**
+     * Example: /admin/sales/rollups?granularity=DAILY&dimension=CATEGORY&key=Development
+     * &from=2023-01-01T00:00:00Z&to=2023-02-01T00:00:00Z
+     * Without key, returns every course/category in range.
+     */
+    @GetMapping(path = "/rollups")
+    public List<SalesRollup> getRollups(@RequestParam RollupGranularity granularity,
+                                        @RequestParam(defaultValue = "TOTAL") RollupDimension dimension,
+                                        @RequestParam(required = false) String key,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        if (!from.isBefore(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        if (granularity == RollupGranularity.HOURLY && Duration.between(from, to).compareTo(MAX_HOURLY_RANGE) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Hourly range is limited to 93 days. Use DAILY");
+        }
+        if (dimension == RollupDimension.TOTAL) key = "";
+        return key == null
+                ? rollupRepository.findRangeAllKeys(granularity, dimension, from, to)
+                : rollupRepository.findRange(granularity, dimension, key, from, to);
+    }
+
+    /**
+     * Rebuild rollups of UTC days [from, to) from raw sales
+     */
+    @PostMapping(path = "/rollups/backfill")
+    public MyCustomResponse backfillRollups(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        int written = rollupService.backfill(from, to);
+        return new MyCustomResponse("Rebuilt " + written + " rollups");
+    }
+}
@@ -1,9 +1,14 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.dto.CursorPage;
+import com.davistiba.wedemyserver.models.Cart;
 import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.MembershipType;
 import com.davistiba.wedemyserver.models.MyCustomResponse;
 import com.davistiba.wedemyserver.repository.CartRepository;
 import com.davistiba.wedemyserver.repository.CourseRepository;
+import com.davistiba.wedemyserver.service.CourseService;
+import com.davistiba.wedemyserver.service.MembershipService;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -20,6 +25,7 @@ import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 // @Secured(value = "ROLE_STUDENT")
@@ -32,13 +38,20 @@ public class CartController {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private MembershipService membershipService;
+
     @PostMapping(path = "/course/{courseId}")
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<MyCustomResponse> addSingleItem(HttpSession session, @PathVariable Integer courseId) {
         try {
             Integer userId = MyUserDetailsService.getSessionUserId(session);
-            Course course = courseRepository.findById(courseId).orElseThrow();
+            Course course = courseService.getCourseById(courseId).orElseThrow();
             int count = cartRepository.addToCartCustom(course.getId(), userId, course.getPrice());
+            membershipService.add(MembershipType.CART, userId, Collections.singleton(courseId));
             return ResponseEntity.ok(new MyCustomResponse(String.format("Added %d item to Cart", count)));
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not add to cart", e);
@@ -50,7 +63,7 @@ public class CartController {
     @ResponseStatus(HttpStatus.OK)
     public Map<String, Boolean> checkUserCartItem(@PathVariable @NotNull Integer courseId, HttpSession session) {
         Integer userId = MyUserDetailsService.getSessionUserId(session);
-        boolean inCart = cartRepository.checkIfCourseInCart(userId, courseId) > 0;
+        boolean inCart = membershipService.contains(MembershipType.CART, userId, courseId);
         Map<String, Boolean> response = Collections.singletonMap("inCart", inCart);
         return response;
     }
@@ -63,6 +76,18 @@ public class CartController {
         return courseRepository.getCartListByUser(userId, PageRequest.of(Math.abs(page), 5));
     }
 
+    @GetMapping(path = "/mine", params = "after")
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPage<Course> getAllMyCartItemsAfter(@RequestParam String after, HttpSession session) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        Integer cartId = CursorPage.decode(after, 1, keys -> Integer.valueOf(keys[0]));
+        var rows = cartRepository.findByUserIdBefore(userId, cartId == null ? Integer.MAX_VALUE : cartId,
+                PageRequest.ofSize(5 + 1));
+        CursorPage<Cart> page = CursorPage.of(rows, 5, c -> new Object[]{c.getId()});
+        return new CursorPage<>(page.getContent().stream().map(Cart::getCourse).collect(Collectors.toList()),
+                page.getNextCursor());
+    }
+
     @GetMapping(path = "/mine/bill")
     @ResponseStatus(HttpStatus.OK)
     public Map<String, BigDecimal> getMyCartBill(HttpSession session) {
@@ -89,6 +114,7 @@ public class CartController {
         if (deletedCount != 1) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not remove from cart");
         }
+        membershipService.remove(MembershipType.CART, userId, Collections.singleton(courseId));
         return ResponseEntity.ok(new MyCustomResponse("Removed from Cart, course " + courseId));
     }
 
@@ -1,28 +1,36 @@
 package com.davistiba.wedemyserver.controllers;
 
-import com.braintreegateway.*;
-import com.davistiba.wedemyserver.config.BraintreeConfig;
+import com.davistiba.wedemyserver.config.CurrentUser;
+import com.davistiba.wedemyserver.config.IdempotencyFilter;
 import com.davistiba.wedemyserver.dto.CheckoutRequest;
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.Checkout;
 import com.davistiba.wedemyserver.models.MyCustomResponse;
 import com.davistiba.wedemyserver.models.User;
-import com.davistiba.wedemyserver.repository.UserRepository;
+import com.davistiba.wedemyserver.repository.CheckoutRepository;
 import com.davistiba.wedemyserver.service.CheckoutService;
+import com.davistiba.wedemyserver.service.ClientTokenPool;
+import com.davistiba.wedemyserver.service.CheckoutWorker;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
+import com.davistiba.wedemyserver.service.PaymentGateway;
+import com.davistiba.wedemyserver.service.PaymentUnavailableException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.annotation.Secured;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
-import java.util.ArrayList;
+import java.net.URI;
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * THIS MODIFIED CODE TAKEN FROM THE OFFICIAL Braintree Github
@@ -33,73 +41,96 @@ import java.util.Map;
 // @Secured(value = "ROLE_STUDENT")
 public class CheckoutController {
 
-    private final BraintreeGateway gateway;
+    /* longest long-poll on /status */
+    private static final int MAX_WAIT_SECONDS = 30;
+
+    private final PaymentGateway gateway;
+
+    private final ClientTokenPool clientTokenPool;
 
     private final CheckoutService checkoutService;
 
-    private final UserRepository userRepository;
+    private final CheckoutWorker checkoutWorker;
+
+    private final CheckoutRepository checkoutRepository;
 
     @Autowired
-    public CheckoutController(BraintreeGateway gateway, CheckoutService checkoutService, UserRepository userRepository) {
-        this.userRepository = userRepository;
-        this.gateway = BraintreeConfig.getGateway();
+    public CheckoutController(PaymentGateway gateway, ClientTokenPool clientTokenPool, CheckoutService checkoutService,
+                              CheckoutWorker checkoutWorker, CheckoutRepository checkoutRepository) {
+        this.gateway = gateway;
+        this.clientTokenPool = clientTokenPool;
         this.checkoutService = checkoutService;
+        this.checkoutWorker = checkoutWorker;
+        this.checkoutRepository = checkoutRepository;
     }
 
     @GetMapping(path = "/token")
     @ResponseStatus(value = HttpStatus.OK)
     public Map<String, String> getClientToken() {
         Map<String, String> response = new HashMap<>(1);
-        String clientToken = gateway.clientToken().generate();
-        response.put("clientToken", clientToken);
-        return response;
+        try {
+            String clientToken = clientTokenPool.take();
+            response.put("clientToken", clientToken);
+            return response;
+        } catch (PaymentUnavailableException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
     }
 
 
     @PostMapping(path = "/complete")
-    @CacheEvict(value = "student-summary", key = "#session.id")
     public ResponseEntity<MyCustomResponse> completePurchase(@Valid @RequestBody CheckoutRequest request,
-                                                             HttpSession session) {
-
-        String transactionId; // from Braintree
-        Integer userId = MyUserDetailsService.getSessionUserId(session);
-        User user = userRepository.findById(userId).orElseThrow();
+                                                             @CurrentUser User user) {
 
         // try to create Braintree transaction
-        TransactionRequest transactionRequest = new TransactionRequest()
-                .amount(request.getTotalAmount())
-                .paymentMethodNonce(request.getNonce())
-                .billingAddress()  // <-- (OPTIONAL, see official docs)
-                .firstName(user.getFullname())
-                .lastName(user.getEmail())
-                .done()
-                .options()
-                .submitForSettlement(true)
-                .done();
-
-        Result<Transaction> result = gateway.transaction().sale(transactionRequest);
-
-        // listen for Transaction Result
-        if (result.isSuccess()) {
-            transactionId = result.getTarget().getId();
-        } else if (result.getTransaction() != null) {
-            transactionId = result.getTransaction().getId();
-        } else {
+        PaymentResult result;
+        try {
+            result = gateway.sale(request.getTotalAmount(), request.getNonce(), user);
+        } catch (PaymentUnavailableException e) {
+            if (e.isGatewayCalled()) IdempotencyFilter.markIrreversible(); //outcome unknown, don't charge again
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
+        // charged (or declined). From here on, a retry with same Idempotency-Key gets this same answer
+        IdempotencyFilter.markIrreversible();
+        if (!result.isSuccess()) {
             //Oops! FAIL ☹
-            List<String> errorList = new ArrayList<>();
-            for (ValidationError error : result.getErrors().getAllDeepValidationErrors()) {
-                errorList.add(error.getMessage());
-            }
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, errorList.toString());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, result.getMessage());
         }
 
         //OK, ALL IS GOOD! let's finally wrap everything up.
         try {
-            MyCustomResponse response = checkoutService.processCheckoutDatabase(transactionId, request, user);
+            MyCustomResponse response = checkoutService.processCheckoutDatabase(result.getTransactionId(), request, user);
             return ResponseEntity.ok().body(response);
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not complete purchase", e);
         }
     }
 
+    /**
+     * Async version of /complete. Replies 202 at once; poll /status/{checkoutId} for result
+     */
+    @PostMapping(path = "/submit")
+    public ResponseEntity<Checkout> submitPurchase(@Valid @RequestBody CheckoutRequest request, @CurrentUser User user) {
+        try {
+            Checkout checkout = checkoutWorker.submit(request, user);
+            return ResponseEntity.accepted().location(URI.create("/checkout/status/" + checkout.getId())).body(checkout);
+        } catch (TaskRejectedException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many checkouts right now. Please try again");
+        }
+    }
+
+    /**
+     * @param wait seconds to wait for a final status (long-poll). 0 returns at once
+     */
+    @GetMapping(path = "/status/{checkoutId}")
+    public DeferredResult<Checkout> getCheckoutStatus(@PathVariable UUID checkoutId,
+                                                      @RequestParam(defaultValue = "0") Integer wait,
+                                                      HttpSession session) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        Checkout checkout = checkoutRepository.findByIdAndUserId(checkoutId, userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Checkout not found"));
+        int seconds = Math.max(0, Math.min(wait, MAX_WAIT_SECONDS));
+        return checkoutWorker.watch(checkout, Duration.ofSeconds(seconds));
+    }
+
 }
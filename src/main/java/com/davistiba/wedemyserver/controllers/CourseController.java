@@ -1,11 +1,19 @@
 package com.davistiba.wedemyserver.controllers;
 
 import com.davistiba.wedemyserver.dto.CategoryDTO;
+import com.davistiba.wedemyserver.dto.CourseDetailDTO;
+import com.davistiba.wedemyserver.dto.CourseSuggestion;
 import com.davistiba.wedemyserver.models.Course;
 import com.davistiba.wedemyserver.repository.CourseRepository;
+import com.davistiba.wedemyserver.service.CourseDetailService;
+import com.davistiba.wedemyserver.service.CourseSearchIndex;
+import com.davistiba.wedemyserver.service.CourseService;
+import com.davistiba.wedemyserver.service.CourseSuggester;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -16,7 +24,13 @@ import org.springframework.web.server.ResponseStatusException;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping(path = "/courses", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -25,9 +39,35 @@ public class CourseController {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseSearchIndex searchIndex;
+
+    @Autowired
+    private CourseSuggester courseSuggester;
+
+    @Autowired
+    private CourseDetailService courseDetailService;
+
     @GetMapping(path = "/id/{id}")
     public ResponseEntity<Course> getCourseById(@PathVariable @NotNull Integer id) {
-        return ResponseEntity.of(courseRepository.findById(id));
+        return ResponseEntity.of(courseService.getCourseById(id));
+    }
+
+    @GetMapping(path = "/{id}/detail")
+    public ResponseEntity<CourseDetailDTO> getCourseDetail(@PathVariable @NotNull Integer id) {
+        try {
+            return ResponseEntity.of(courseDetailService.getCourseDetail(id));
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "Took too long to load course", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not load course", e.getCause());
+        }
     }
 
     @GetMapping(path = "/cat/{category}")
@@ -43,7 +83,7 @@ public class CourseController {
     @GetMapping(path = "/top")
     @ResponseStatus(value = HttpStatus.OK)
     public ResponseEntity<List<Course>> getAllTopCourses() {
-        var courseList = courseRepository.getTop6CoursesByIsFeatured(true);
+        var courseList = courseService.getTopCourses();
         CacheControl cc = CacheControl.maxAge(60, TimeUnit.MINUTES).cachePublic();
         return ResponseEntity.ok().cacheControl(cc).body(courseList);
     }
@@ -51,7 +91,7 @@ public class CourseController {
     @GetMapping(path = "/categories")
     @ResponseStatus(value = HttpStatus.OK)
     public ResponseEntity<List<CategoryDTO>> getCategoryListDistinct() {
-        var categoryDTO = courseRepository.getAllDistinctCategories();
+        var categoryDTO = courseService.getAllCategories();
         CacheControl cc = CacheControl.maxAge(60, TimeUnit.MINUTES).cachePublic();
         return ResponseEntity.ok().cacheControl(cc).body(categoryDTO);
     }
@@ -64,6 +104,23 @@ public class CourseController {
         if (title.length() < 3) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query too short");
         }
-        return courseRepository.getCoursesByTitleContaining(title, PageRequest.of(page, 10));
+        Pageable pageable = PageRequest.of(Math.abs(page), 10);
+        List<Integer> rankedIds = searchIndex.search(title);
+        int start = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        int end = Math.min(start + pageable.getPageSize(), rankedIds.size());
+        List<Integer> pageIds = rankedIds.subList(start, end);
+
+        // fetch only this page, then restore ranking order
+        Map<Integer, Course> courseMap = courseRepository.findCoursesByIdIn(pageIds).stream()
+                .collect(Collectors.toMap(Course::getId, Function.identity()));
+        List<Course> content = pageIds.stream().map(courseMap::get).filter(Objects::nonNull).collect(Collectors.toList());
+        return new SliceImpl<>(content, pageable, end < rankedIds.size());
+    }
+
+    @GetMapping(path = "/suggest")
+    @ResponseStatus(value = HttpStatus.OK)
+    public List<CourseSuggestion> suggestCourseTitles(@RequestParam(defaultValue = "") String prefix,
+                                                      @RequestParam(defaultValue = "8") Integer limit) {
+        return courseSuggester.suggest(prefix, Math.max(limit, 1));
     }
 }
@@ -1,17 +1,20 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.dto.CursorPage;
 import com.davistiba.wedemyserver.dto.EnrollmentDTO;
 import com.davistiba.wedemyserver.dto.VideoRequest;
 import com.davistiba.wedemyserver.dto.VideoResponse;
 import com.davistiba.wedemyserver.dto.WatchStatus;
 import com.davistiba.wedemyserver.models.Enrollment;
 import com.davistiba.wedemyserver.models.Lesson;
+import com.davistiba.wedemyserver.models.MembershipType;
 import com.davistiba.wedemyserver.repository.EnrollmentRepository;
 import com.davistiba.wedemyserver.repository.LessonRepository;
 import com.davistiba.wedemyserver.service.EnrollProgressService;
+import com.davistiba.wedemyserver.service.MembershipService;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
+import com.davistiba.wedemyserver.service.WatchedLessonsBuffer;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -40,12 +43,18 @@ public class EnrollmentController {
     @Autowired
     private EnrollProgressService progressService;
 
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private WatchedLessonsBuffer watchedLessonsBuffer;
+
     @GetMapping(path = "/status/c/{courseId}")
     @ResponseStatus(HttpStatus.OK)
     public Map<String, Boolean> checkEnrollStatus(@PathVariable @NotNull Integer courseId, HttpSession session) {
         Map<String, Boolean> response = new HashMap<>(1);
         Integer userId = MyUserDetailsService.getSessionUserId(session);
-        boolean isOwned = enrollmentRepository.existsByUserIdAndCourseId(userId, courseId);
+        boolean isOwned = membershipService.contains(MembershipType.OWNED, userId, courseId);
         response.put("isOwned", isOwned);
         return response;
     }
@@ -64,6 +73,15 @@ public class EnrollmentController {
         return enrollmentRepository.findByUserId(userId, PageRequest.of(page, 10));
     }
 
+    @GetMapping(path = "/mine", params = "after")
+    public CursorPage<EnrollmentDTO> getAllCourseProgressAfter(@NotNull HttpSession session, @RequestParam String after) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        Long enrollmentId = CursorPage.decode(after, 1, keys -> Long.valueOf(keys[0]));
+        var rows = enrollmentRepository.findByUserIdBefore(userId, enrollmentId == null ? Long.MAX_VALUE : enrollmentId,
+                PageRequest.ofSize(10 + 1));
+        return CursorPage.of(rows, 10, e -> new Object[]{e.getId()});
+    }
+
 
     @PostMapping(path = "/videolink/builder")
     public ResponseEntity<VideoResponse> getLessonVideoLink(@NotNull HttpSession session,
@@ -91,16 +109,15 @@ public class EnrollmentController {
         if (enrollment.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You don't own this course");
         }
-        Optional<Lesson> nextLesson = progressService.getNextLesson(enrollment.get());
+        Optional<UUID> nextLesson = progressService.getNextLesson(enrollment.get());
         if (nextLesson.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not get lesson!");
         }
-        return Collections.singletonMap("lessonId", String.valueOf(nextLesson.get().getId()));
+        return Collections.singletonMap("lessonId", String.valueOf(nextLesson.get()));
     }
 
 
     @PostMapping(path = "/watched")
-    @CacheEvict(value = "student-summary", key = "#session.id")
     public Map<String, String> updateWatchStatus(@RequestBody @Valid WatchStatus status, HttpSession session) {
         try {
             //first, check if user owns course
@@ -109,9 +126,11 @@ public class EnrollmentController {
             if (enrollment.isEmpty()) throw new Exception("You don't own this course");
             //get next Lesson
             Map<String, String> response = new HashMap<>(2);
-            Optional<Lesson> nextLesson = progressService.updateAndGetNextLesson(status, enrollment.get());
+            Optional<UUID> nextLesson = watchedLessonsBuffer.isEnabled()
+                    ? progressService.recordWatched(status, enrollment.get())
+                    : progressService.updateAndGetNextLesson(status, enrollment.get());
             if (nextLesson.isPresent()) {
-                response.put("nextLessonId", String.valueOf(nextLesson.get().getId()));
+                response.put("nextLessonId", String.valueOf(nextLesson.get()));
             } else {
                 response.put("nextLessonId", null);
                 response.put("message", "Bravo! You have completed the course!");
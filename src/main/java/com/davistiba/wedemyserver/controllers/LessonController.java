@@ -1,7 +1,10 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.dto.CursorPage;
+import com.davistiba.wedemyserver.dto.LessonDTO;
 import com.davistiba.wedemyserver.models.Lesson;
 import com.davistiba.wedemyserver.repository.LessonRepository;
+import com.davistiba.wedemyserver.service.EnrollProgressService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
@@ -12,7 +15,6 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.constraints.NotNull;
 import java.util.List;
-import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/lessons", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -21,6 +23,9 @@ public class LessonController {
     @Autowired
     private LessonRepository lessonRepository;
 
+    @Autowired
+    private EnrollProgressService progressService;
+
     @GetMapping(path = "/course/{id}")
     @ResponseStatus(HttpStatus.OK)
     public Slice<Lesson> getLessonsByCourseId(@PathVariable @NotNull Integer id,
@@ -28,12 +33,20 @@ public class LessonController {
         return lessonRepository.getLessonsByCourseId(id, PageRequest.of(page, 10));
     }
 
+    @GetMapping(path = "/course/{id}", params = "after")
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPage<Lesson> getLessonsByCourseIdAfter(@PathVariable @NotNull Integer id, @RequestParam String after) {
+        Integer position = CursorPage.decode(after, 1, keys -> Integer.valueOf(keys[0]));
+        var lessons = lessonRepository.getLessonsByCourseIdAfter(id, position == null ? Integer.MIN_VALUE : position,
+                PageRequest.ofSize(10 + 1));
+        return CursorPage.of(lessons, 10, s -> new Object[]{s.getPosition()});
+    }
+
     @GetMapping(path = "/c/{courseId}/e/{enrollId}")
     @ResponseStatus(HttpStatus.OK)
     // @Secured(value = "ROLE_STUDENT")
-    public List<Map<String, Object>> getAllMyLessonsInEnrollment(@PathVariable Integer courseId,
-                                                                 @PathVariable Long enrollId) {
-        return lessonRepository.getWatchStatusListByEnrollment(enrollId, courseId);
+    public List<LessonDTO> getAllMyLessonsInEnrollment(@PathVariable Integer courseId, @PathVariable Long enrollId) {
+        return progressService.getWatchStatusList(enrollId, courseId);
     }
 
 }
@@ -1,14 +1,15 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.config.CurrentUser;
 import com.davistiba.wedemyserver.dto.StudentSummary;
 import com.davistiba.wedemyserver.dto.UserDTO;
 import com.davistiba.wedemyserver.models.User;
 import com.davistiba.wedemyserver.repository.UserRepository;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
 import com.davistiba.wedemyserver.service.ProfileService;
+import com.davistiba.wedemyserver.service.UserCache;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -28,24 +29,22 @@ public class ProfileController {
 
     private final ProfileService profileService;
 
+    private final UserCache userCache;
+
     private final ModelMapper modelMapper;
 
     @Autowired
-    public ProfileController(UserRepository userRepository, ProfileService profileService) {
+    public ProfileController(UserRepository userRepository, ProfileService profileService, UserCache userCache) {
         this.userRepository = userRepository;
         this.profileService = profileService;
+        this.userCache = userCache;
         this.modelMapper = new ModelMapper();
     }
 
     @GetMapping(path = "/mine")
-    public ResponseEntity<UserDTO> getUserById(@NotNull HttpSession session) {
-        try {
-            Integer userId = MyUserDetailsService.getSessionUserId(session);
-            UserDTO userDTO = userRepository.findUserDTObyId(userId).orElseThrow();
-            return ResponseEntity.ok().body(userDTO);
-        } catch (Exception ex) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage());
-        }
+    public ResponseEntity<UserDTO> getUserById(@CurrentUser(required = false) User user) {
+        if (user == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found");
+        return ResponseEntity.ok().body(modelMapper.map(user, UserDTO.class));
     }
 
     @PutMapping(path = "/mine")
@@ -58,6 +57,7 @@ public class ProfileController {
             // You may modify other fields
             u.setConfirmPass("WHATEVER!");
             User freshUser = userRepository.save(u);
+            userCache.evict(userId);
             return ResponseEntity.ok().body(modelMapper.map(freshUser, UserDTO.class));
         } catch (Exception ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not edit your profile", ex);
@@ -67,10 +67,7 @@ public class ProfileController {
 
     @GetMapping(path = "/summary")
     @ResponseStatus(value = HttpStatus.OK)
-    @Cacheable(value = "student-summary", key = "#session.id")
-    public List<StudentSummary> getUserSummary(@NotNull HttpSession session) {
-        Integer userId = MyUserDetailsService.getSessionUserId(session);
-        User user = userRepository.findById(userId).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public List<StudentSummary> getUserSummary(@CurrentUser User user) {
         return profileService.getUserSummaryList(user);
     }
 
@@ -1,10 +1,15 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.config.CurrentUser;
+import com.davistiba.wedemyserver.dto.CursorPage;
+import com.davistiba.wedemyserver.dto.RatingSummary;
 import com.davistiba.wedemyserver.dto.ReviewDTO;
 import com.davistiba.wedemyserver.dto.ReviewRequest;
 import com.davistiba.wedemyserver.models.MyCustomResponse;
 import com.davistiba.wedemyserver.models.Review;
+import com.davistiba.wedemyserver.models.User;
 import com.davistiba.wedemyserver.repository.ReviewRepository;
+import com.davistiba.wedemyserver.service.CourseService;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
 import com.davistiba.wedemyserver.service.ReviewService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +26,8 @@ import org.springframework.web.server.ResponseStatusException;
 
 import javax.servlet.http.HttpSession;
 import javax.validation.Valid;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.stream.Stream;
 
 @RestController
@@ -33,13 +40,15 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
+    @Autowired
+    private CourseService courseService;
+
 
     @PostMapping(path = "/")
     // @Secured(value = "ROLE_STUDENT")
-    public ResponseEntity<MyCustomResponse> addCourseReview(@Valid @RequestBody ReviewRequest review, HttpSession session) {
+    public ResponseEntity<MyCustomResponse> addCourseReview(@Valid @RequestBody ReviewRequest review, @CurrentUser User user) {
         try {
-            Integer userId = MyUserDetailsService.getSessionUserId(session);
-            reviewService.addCourseRating(review, userId);
+            reviewService.addCourseRating(review, user);
             return ResponseEntity.ok().body(new MyCustomResponse("Thanks for your review!"));
         } catch (Exception e) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not add review", e);
@@ -58,6 +67,12 @@ public class ReviewController {
         }
     }
 
+    @GetMapping(path = "/course/{courseId}/stats")
+    public RatingSummary getCourseRatingStats(@PathVariable Integer courseId) {
+        return courseService.getCourseById(courseId).map(RatingSummary::of)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Course not found"));
+    }
+
     @GetMapping(path = "/mine/c/{courseId}")
     // @Secured(value = "ROLE_STUDENT")
     public ResponseEntity<Review> getMyReviewOnCourse(@PathVariable Integer courseId, HttpSession session) {
@@ -76,4 +91,27 @@ public class ReviewController {
         Pageable pageable = PageRequest.of(page, 10, Sort.Direction.DESC, sortBy);
         return reviewRepository.findByCourseId(courseId, pageable);
     }
+
+    @GetMapping(path = "/course/{courseId}", params = "after")
+    public CursorPage<ReviewDTO> getCourseReviewsAfter(@RequestParam String after,
+                                                       @RequestParam(defaultValue = "createdAt") String sortBy,
+                                                       @PathVariable Integer courseId) {
+        Pageable limit = PageRequest.ofSize(10 + 1);
+        if (sortBy.equals("createdAt")) {
+            Object[] keys = CursorPage.decode(after, 3, k -> new Object[]{Instant.parse(k[1]), Integer.valueOf(k[2])});
+            // first page: start after anything possibly stored
+            Instant createdAt = keys == null ? Instant.now().plus(1, ChronoUnit.DAYS) : (Instant) keys[0];
+            Integer id = keys == null ? Integer.MAX_VALUE : (Integer) keys[1];
+            var reviews = reviewRepository.findByCourseIdCreatedBefore(courseId, createdAt, id, limit);
+            return CursorPage.of(reviews, 10, r -> new Object[]{sortBy, r.getCreatedAt(), r.getId()});
+        }
+        if (sortBy.equals("rating")) {
+            Integer[] keys = CursorPage.decode(after, 3, k -> new Integer[]{Integer.valueOf(k[1]), Integer.valueOf(k[2])});
+            Integer rating = keys == null ? Integer.MAX_VALUE : keys[0];
+            Integer id = keys == null ? Integer.MAX_VALUE : keys[1];
+            var reviews = reviewRepository.findByCourseIdRatedBelow(courseId, rating, id, limit);
+            return CursorPage.of(reviews, 10, r -> new Object[]{sortBy, r.getRating(), r.getId()});
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid 'sort' param");
+    }
 }
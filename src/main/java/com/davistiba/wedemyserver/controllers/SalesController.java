@@ -1,5 +1,6 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.dto.CursorPage;
 import com.davistiba.wedemyserver.dto.OrderItemDTO;
 import com.davistiba.wedemyserver.dto.SalesDTO;
 import com.davistiba.wedemyserver.repository.OrderItemRepository;
@@ -15,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpSession;
 import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @RestController
 @RequestMapping(path = "/sales", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -33,6 +36,17 @@ public class SalesController {
         return salesRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
     }
 
+    @GetMapping(path = "/mine", params = "after")
+    public CursorPage<SalesDTO> getAllMyOwnedItemsAfter(@NotNull HttpSession session, @RequestParam String after) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        Object[] keys = CursorPage.decode(after, 2, k -> new Object[]{Instant.parse(k[0]), k[1]});
+        // first page: start after anything possibly stored
+        Instant createdAt = keys == null ? Instant.now().plus(1, ChronoUnit.DAYS) : (Instant) keys[0];
+        String transactionId = keys == null ? "" : (String) keys[1];
+        var sales = salesRepository.findByUserIdCreatedBefore(userId, createdAt, transactionId, PageRequest.ofSize(10 + 1));
+        return CursorPage.of(sales, 10, s -> new Object[]{s.getCreatedAt(), s.getTransactionId()});
+    }
+
     @GetMapping(path = "/mine/{transactionId}")
     public Slice<OrderItemDTO> getItemsbyTransactionId(@PathVariable String transactionId,
                                                        @RequestParam(defaultValue = "0") Integer page) {
@@ -0,0 +1,33 @@
+package com.davistiba.wedemyserver.controllers;
+
+import com.davistiba.wedemyserver.dto.CourseStatus;
+import com.davistiba.wedemyserver.dto.CourseStatusRequest;
+import com.davistiba.wedemyserver.service.CourseStatusService;
+import com.davistiba.wedemyserver.service.MyUserDetailsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpSession;
+import javax.validation.Valid;
+import java.util.Map;
+
+@RestController
+@RequestMapping(path = "/status", produces = MediaType.APPLICATION_JSON_VALUE)
+public class StatusController {
+
+    @Autowired
+    private CourseStatusService courseStatusService;
+
+    /**
+     * Replaces calling /cart/status, /wishlist/status and /enroll/status for every course card
+     */
+    @PostMapping(path = "/courses")
+    @ResponseStatus(HttpStatus.OK)
+    public Map<Integer, CourseStatus> getCourseStatuses(@RequestBody @Valid CourseStatusRequest request,
+                                                        HttpSession session) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        return courseStatusService.getStatuses(userId, request.getCourseIds());
+    }
+}
@@ -1,9 +1,13 @@
 package com.davistiba.wedemyserver.controllers;
 
+import com.davistiba.wedemyserver.dto.CursorPage;
 import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.MembershipType;
 import com.davistiba.wedemyserver.models.MyCustomResponse;
+import com.davistiba.wedemyserver.models.Wishlist;
 import com.davistiba.wedemyserver.repository.CourseRepository;
 import com.davistiba.wedemyserver.repository.WishlistRepository;
+import com.davistiba.wedemyserver.service.MembershipService;
 import com.davistiba.wedemyserver.service.MyUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -19,6 +23,7 @@ import javax.servlet.http.HttpSession;
 import javax.validation.constraints.NotNull;
 import java.util.Collections;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 // @Secured("ROLE_STUDENT")
@@ -31,12 +36,16 @@ public class WishlistController {
     @Autowired
     private CourseRepository courseRepository;
 
+    @Autowired
+    private MembershipService membershipService;
+
 
     @PostMapping(path = "/course/{courseId}")
     @ResponseStatus(HttpStatus.CREATED)
     public ResponseEntity<MyCustomResponse> addNewWishlist(@PathVariable Integer courseId, HttpSession session) {
         Integer userId = MyUserDetailsService.getSessionUserId(session);
         int count = wishlistRepository.saveByCourseIdAndUserId(courseId, userId);
+        membershipService.add(MembershipType.WISHLIST, userId, Collections.singleton(courseId));
         return ResponseEntity.ok(new MyCustomResponse(String.format("Added %d item to Wishlist", count)));
     }
 
@@ -44,7 +53,7 @@ public class WishlistController {
     @ResponseStatus(HttpStatus.OK)
     public Map<String, Boolean> checkUserLikedCourse(@PathVariable @NotNull Integer courseId, HttpSession session) {
         Integer userId = MyUserDetailsService.getSessionUserId(session);
-        boolean inWishlist = wishlistRepository.checkIfExistWishlistNative(userId, courseId) > 0;
+        boolean inWishlist = membershipService.contains(MembershipType.WISHLIST, userId, courseId);
         return Collections.singletonMap("inWishlist", inWishlist);
     }
 
@@ -56,6 +65,18 @@ public class WishlistController {
         return courseRepository.getWishlistByUser(userId, PageRequest.of(Math.abs(page), 5));
     }
 
+    @GetMapping(path = "/mine", params = "after")
+    @ResponseStatus(HttpStatus.OK)
+    public CursorPage<Course> getMyWishlistAfter(@RequestParam String after, HttpSession session) {
+        Integer userId = MyUserDetailsService.getSessionUserId(session);
+        Integer wishlistId = CursorPage.decode(after, 1, keys -> Integer.valueOf(keys[0]));
+        var rows = wishlistRepository.findByUserIdBefore(userId, wishlistId == null ? Integer.MAX_VALUE : wishlistId,
+                PageRequest.ofSize(5 + 1));
+        CursorPage<Wishlist> page = CursorPage.of(rows, 5, w -> new Object[]{w.getId()});
+        return new CursorPage<>(page.getContent().stream().map(Wishlist::getCourse).collect(Collectors.toList()),
+                page.getNextCursor());
+    }
+
     @DeleteMapping(path = "/course/{courseId}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<MyCustomResponse> removeWishlistByCourseId(@PathVariable @NotNull Integer courseId, HttpSession session) {
@@ -64,6 +85,7 @@ public class WishlistController {
         if (deletedCount != 1) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not remove from wishlist");
         }
+        membershipService.remove(MembershipType.WISHLIST, userId, Collections.singleton(courseId));
         return ResponseEntity.ok(new MyCustomResponse("Removed from Wishlist, course " + courseId));
     }
 
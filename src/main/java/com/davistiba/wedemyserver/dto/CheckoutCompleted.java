@@ -0,0 +1,19 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * NOT A TABLE
+ * Outbox payload: user bought these courses
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutCompleted {
+    private Integer userId;
+    private List<Integer> courseIds;
+}
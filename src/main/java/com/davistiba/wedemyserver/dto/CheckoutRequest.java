@@ -31,4 +31,10 @@ public class CheckoutRequest {
     public CheckoutRequest() {
     }
 
+    public CheckoutRequest(String nonce, BigDecimal totalAmount, String paymentMethod) {
+        this.nonce = nonce;
+        this.totalAmount = totalAmount;
+        this.paymentMethod = paymentMethod;
+    }
+
 }
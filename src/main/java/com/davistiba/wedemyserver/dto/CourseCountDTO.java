@@ -0,0 +1,20 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * NOT A TABLE
+ * Number of rows per course (e.g. enrollments)
+ */
+@Getter
+@ToString
+public class CourseCountDTO {
+    private final Integer courseId;
+    private final Long total;
+
+    public CourseCountDTO(Integer courseId, Long total) {
+        this.courseId = courseId;
+        this.total = total;
+    }
+}
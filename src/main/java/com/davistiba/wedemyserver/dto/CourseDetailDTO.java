@@ -0,0 +1,32 @@
+package com.davistiba.wedemyserver.dto;
+
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseObjective;
+import com.davistiba.wedemyserver.models.Lesson;
+import lombok.Getter;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * NOT A TABLE
+ * Everything needed by the course page, in one response.
+ * Lessons and reviews are first page only (same as their own endpoints)
+ */
+@Getter
+public class CourseDetailDTO {
+    private final Course course;
+    private final List<CourseObjective> objectives;
+    private final Slice<Lesson> lessons;
+    private final Slice<ReviewDTO> reviews;
+    private final RatingSummary ratingSummary;
+
+    public CourseDetailDTO(Course course, List<CourseObjective> objectives, Slice<Lesson> lessons,
+                           Slice<ReviewDTO> reviews, RatingSummary ratingSummary) {
+        this.course = course;
+        this.objectives = objectives;
+        this.lessons = lessons;
+        this.reviews = reviews;
+        this.ratingSummary = ratingSummary;
+    }
+}
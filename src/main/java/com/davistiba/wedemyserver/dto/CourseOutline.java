@@ -0,0 +1,150 @@
+package com.davistiba.wedemyserver.dto;
+
+import com.davistiba.wedemyserver.models.Lesson;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * NOT A TABLE
+ * Immutable list of a course's lessons, ordered by position: ids, names, lengths and
+ * preformatted mm:ss durations. Cached per course, so progress and watch-status
+ * don't need to query the lessons table.
+ * Also reads an enrollment's watched-lessons bitset (see {@link #firstNotWatched}).
+ */
+public class CourseOutline implements Serializable {
+    private static final long serialVersionUID = 6018342977610523154L;
+
+    /* highest lesson position the watched-lessons column can hold (1024 bytes) */
+    public static final int MAX_POSITION = 1024 * 8 - 1;
+
+    private final UUID[] lessonIds;
+    private final int[] positions;
+    private final String[] names;
+    private final int[] lengthSeconds;
+    private final String[] videoTimes;
+    private final Map<UUID, Integer> indexById;
+
+    private CourseOutline(UUID[] lessonIds, int[] positions, String[] names, int[] lengthSeconds, String[] videoTimes) {
+        this.lessonIds = lessonIds;
+        this.positions = positions;
+        this.names = names;
+        this.lengthSeconds = lengthSeconds;
+        this.videoTimes = videoTimes;
+        this.indexById = new HashMap<>(lessonIds.length * 2);
+        for (int i = 0; i < lessonIds.length; i++) indexById.put(lessonIds[i], i);
+    }
+
+    /**
+     * @param lessons ordered by position
+     * @throws IllegalArgumentException if a position is negative or above {@link #MAX_POSITION}
+     */
+    @NotNull
+    public static CourseOutline of(@NotNull List<Lesson> lessons) {
+        int size = lessons.size();
+        UUID[] ids = new UUID[size];
+        int[] positions = new int[size];
+        String[] names = new String[size];
+        int[] lengthSeconds = new int[size];
+        String[] videoTimes = new String[size];
+        for (int i = 0; i < size; i++) {
+            Lesson lesson = lessons.get(i);
+            if (lesson.getPosition() < 0 || lesson.getPosition() > MAX_POSITION) {
+                throw new IllegalArgumentException("Lesson " + lesson.getId() + " has position " + lesson.getPosition() +
+                        ", watch status supports 0.." + MAX_POSITION);
+            }
+            ids[i] = lesson.getId();
+            positions[i] = lesson.getPosition();
+            names[i] = lesson.getLessonName();
+            lengthSeconds[i] = lesson.getLengthInSeconds();
+            videoTimes[i] = lesson.getLengthSeconds(); //<-- already mm:ss
+        }
+        return new CourseOutline(ids, positions, names, lengthSeconds, videoTimes);
+    }
+
+    /* total lessons in course */
+    public int size() {
+        return lessonIds.length;
+    }
+
+    /**
+     * @return index in outline, or -1 if lesson is not in this course
+     */
+    public int indexOf(UUID lessonId) {
+        return indexById.getOrDefault(lessonId, -1);
+    }
+
+    public UUID lessonIdAt(int index) {
+        return lessonIds[index];
+    }
+
+    public int positionAt(int index) {
+        return positions[index];
+    }
+
+    public String nameAt(int index) {
+        return names[index];
+    }
+
+    public int lengthSecondsAt(int index) {
+        return lengthSeconds[index];
+    }
+
+    public String videoTimeAt(int index) {
+        return videoTimes[index];
+    }
+
+    /**
+     * Merge with an enrollment's watched lessons
+     *
+     * @param watched bitset of watched positions
+     * @return all lessons, by position
+     */
+    @NotNull
+    public List<LessonDTO> withWatchStatus(@NotNull BitSet watched) {
+        List<LessonDTO> lessons = new ArrayList<>(lessonIds.length);
+        for (int i = 0; i < lessonIds.length; i++) {
+            lessons.add(new LessonDTO(lessonIds[i].toString(), names[i], positions[i], videoTimes[i], isWatched(watched, i)));
+        }
+        return lessons;
+    }
+
+    /* ---- watched lessons are a bitset: bit N set means lesson at position N was watched ---- */
+
+    public boolean isWatched(@NotNull BitSet watched, int index) {
+        return watched.get(positions[index]);
+    }
+
+    /**
+     * @return index of first lesson not yet watched, or -1 if all watched
+     */
+    public int firstNotWatched(@NotNull BitSet watched) {
+        for (int i = 0; i < positions.length; i++) {
+            if (!watched.get(positions[i])) return i;
+        }
+        return -1;
+    }
+
+    /* watched lessons that are still in this course */
+    public int countWatched(@NotNull BitSet watched) {
+        int count = 0;
+        for (int position : positions) {
+            if (watched.get(position)) count++;
+        }
+        return count;
+    }
+
+    public boolean isCompletedBy(@NotNull BitSet watched) {
+        return countWatched(watched) >= lessonIds.length;
+    }
+
+    /* percent of lessons watched, 2 decimals */
+    @NotNull
+    public BigDecimal progressOf(@NotNull BitSet watched) {
+        if (lessonIds.length == 0) return BigDecimal.ZERO;
+        return BigDecimal.valueOf(countWatched(watched) * 100.00 / lessonIds.length).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,22 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * NOT A TABLE
+ * Flags shown on each course card, for current user
+ */
+@Getter
+@ToString
+public class CourseStatus {
+    private final Boolean inCart;
+    private final Boolean inWishlist;
+    private final Boolean isOwned;
+
+    public CourseStatus(Boolean inCart, Boolean inWishlist, Boolean isOwned) {
+        this.inCart = inCart;
+        this.inWishlist = inWishlist;
+        this.isOwned = isOwned;
+    }
+}
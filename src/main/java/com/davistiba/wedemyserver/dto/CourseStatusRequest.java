@@ -0,0 +1,21 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.Getter;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Course ids currently displayed on frontend (e.g. one grid page)
+ */
+@Getter
+public class CourseStatusRequest {
+    @NotEmpty
+    @Size(max = 100)
+    private List<@NotNull Integer> courseIds;
+
+    public CourseStatusRequest() {
+    }
+}
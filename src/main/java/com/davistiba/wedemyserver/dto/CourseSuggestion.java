@@ -0,0 +1,22 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * NOT A TABLE
+ * Single typeahead result
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class CourseSuggestion {
+    private final Integer id;
+    private final String title;
+
+    public CourseSuggestion(Integer id, String title) {
+        this.id = id;
+        this.title = title;
+    }
+}
@@ -0,0 +1,100 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * NOT A TABLE
+ * One page of keyset (seek) pagination. Pass {@code nextCursor} back as {@code ?after=}
+ * to get the following page. NULL nextCursor means this is the last page.
+ */
+@Getter
+@ToString
+public class CursorPage<T> {
+    private final List<T> content;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    public CursorPage(List<T> content, String nextCursor) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = nextCursor != null;
+    }
+
+    /**
+     * Build page from rows fetched with limit (size + 1). The extra row only tells us there is more.
+     *
+     * @param rows     at most size + 1 rows
+     * @param size     page size
+     * @param cursorOf seek keys of a row
+     */
+    @NotNull
+    public static <T> CursorPage<T> of(@NotNull List<T> rows, int size, Function<T, Object[]> cursorOf) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, size);
+        return new CursorPage<>(content, encode(cursorOf.apply(content.get(size - 1))));
+    }
+
+    /* keys joined by '|'. A '|' or backslash inside a key is escaped with a backslash */
+    @NotNull
+    public static String encode(Object... keys) {
+        String raw = Stream.of(keys).map(String::valueOf)
+                .map(k -> k.replace("\\", "\\\\").replace("|", "\\|"))
+                .collect(Collectors.joining("|"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode an opaque cursor from client
+     *
+     * @param cursor   token from previous page. Empty means first page
+     * @param numParts expected number of keys
+     * @param parser   converts keys to seek values
+     * @return parsed seek values, or NULL if first page
+     */
+    public static <K> K decode(String cursor, int numParts, Function<String[], K> parser) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            List<String> parts = split(raw);
+            if (parts.size() != numParts) throw new IllegalArgumentException("wrong number of keys");
+            return parser.apply(parts.toArray(new String[0]));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid 'after' cursor");
+        }
+    }
+
+    /* split on unescaped '|', and unescape */
+    @NotNull
+    private static List<String> split(@NotNull String raw) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '\\') {
+                if (++i == raw.length()) throw new IllegalArgumentException("dangling escape");
+                part.append(raw.charAt(i));
+            } else if (c == '|') {
+                parts.add(part.toString());
+                part.setLength(0);
+            } else {
+                part.append(c);
+            }
+        }
+        parts.add(part.toString());
+        return parts;
+    }
+}
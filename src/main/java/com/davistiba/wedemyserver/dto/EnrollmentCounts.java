@@ -0,0 +1,15 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * NOT A TABLE
+ * How many courses a user owns, and how many of them are completed
+ */
+@Getter
+@AllArgsConstructor
+public class EnrollmentCounts {
+    private Long owned;
+    private Long completed;
+}
@@ -0,0 +1,30 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * NOT A TABLE
+ * One enrollment in finance export
+ */
+@Getter
+@AllArgsConstructor
+public class EnrollmentExportRow implements ExportRow {
+    public static final String[] HEADER = {"id", "created_at", "user_id", "course_id", "course_title", "progress", "is_completed"};
+
+    private Long id;
+    private Instant createdAt;
+    private Integer userId;
+    private Integer courseId;
+    private String courseTitle;
+    private BigDecimal progress;
+    private Boolean isCompleted;
+
+    @Override
+    public Object[] csvValues() {
+        return new Object[]{id, createdAt, userId, courseId, courseTitle, progress, isCompleted};
+    }
+}
@@ -0,0 +1,26 @@
+package com.davistiba.wedemyserver.dto;
+
+/**
+ * NOT A TABLE
+ * File formats of admin exports. Both are written one row at a time
+ */
+public enum ExportFormat {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    JSONL("application/x-ndjson;charset=UTF-8", "jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
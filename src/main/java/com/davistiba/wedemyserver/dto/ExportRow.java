@@ -0,0 +1,9 @@
+package com.davistiba.wedemyserver.dto;
+
+/**
+ * NOT A TABLE
+ * Row of an admin export. JSON uses the getters, CSV uses {@link #csvValues()} in header order
+ */
+public interface ExportRow {
+    Object[] csvValues();
+}
@@ -0,0 +1,32 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NOT A TABLE
+ * Stored in Redis per Idempotency-Key: first in progress, then the response to replay
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentResponse {
+    private boolean completed;
+    /* MD5 of request body (fingerprint only). Same key with another body is rejected */
+    private String requestHash;
+    private Integer status;
+    private String contentType;
+    private String body;
+    /* e.g. Location. Except ones the container sets itself */
+    private Map<String, List<String>> headers;
+    /* error responses are replayed with sendError(status, errorMessage), like the original */
+    private String errorMessage;
+
+    public static IdempotentResponse inProgress(String requestHash) {
+        return new IdempotentResponse(false, requestHash, null, null, null, null, null);
+    }
+}
@@ -1,14 +1,36 @@
 package com.davistiba.wedemyserver.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * NOT A TABLE
+ * One lesson in an enrollment, with its watch status.
+ * JSON same as the old SQL row: is_watched is 1/0, video_time is "mm:ss"
+ */
 @Getter
 @Setter
 public class LessonDTO {
     private String id;
+    @JsonProperty("lesson_name")
     private String lessonName;
     private Integer position;
+    @JsonProperty("is_watched")
+    @JsonFormat(shape = JsonFormat.Shape.NUMBER) //<-- was SQL EXISTS, so 1/0
     private Boolean isWatched;
-    private Integer videoTime;
+    @JsonProperty("video_time")
+    private String videoTime;
+
+    public LessonDTO() {
+    }
+
+    public LessonDTO(String id, String lessonName, Integer position, String videoTime, Boolean isWatched) {
+        this.id = id;
+        this.lessonName = lessonName;
+        this.position = position;
+        this.videoTime = videoTime;
+        this.isWatched = isWatched;
+    }
 }
@@ -0,0 +1,30 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * NOT A TABLE
+ * Outcome of a payment gateway sale
+ */
+@Getter
+@ToString
+public class PaymentResult {
+    private final boolean success;
+    private final String transactionId;
+    private final String message;
+
+    private PaymentResult(boolean success, String transactionId, String message) {
+        this.success = success;
+        this.transactionId = transactionId;
+        this.message = message;
+    }
+
+    public static PaymentResult success(String transactionId) {
+        return new PaymentResult(true, transactionId, null);
+    }
+
+    public static PaymentResult fail(String message) {
+        return new PaymentResult(false, null, message);
+    }
+}
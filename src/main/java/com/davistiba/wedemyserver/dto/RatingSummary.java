@@ -0,0 +1,46 @@
+package com.davistiba.wedemyserver.dto;
+
+import com.davistiba.wedemyserver.models.Course;
+import lombok.Getter;
+import lombok.ToString;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * NOT A TABLE
+ * Review statistics of one course: average rating, number of reviews and
+ * star distribution (5 down to 1). Read from the course's maintained totals
+ */
+@Getter
+@ToString
+public class RatingSummary implements Serializable {
+    private static final long serialVersionUID = 3072496813357726413L;
+    private final BigDecimal average;
+    private final Long totalReviews;
+    private final Map<Integer, Integer> stars;
+
+    public RatingSummary(BigDecimal average, Long totalReviews, Map<Integer, Integer> stars) {
+        this.average = average;
+        this.totalReviews = totalReviews;
+        this.stars = stars;
+    }
+
+    @NotNull
+    public static RatingSummary of(@NotNull Course course) {
+        Map<Integer, Integer> stars = new LinkedHashMap<>(8);
+        stars.put(5, zeroIfNull(course.getStars5()));
+        stars.put(4, zeroIfNull(course.getStars4()));
+        stars.put(3, zeroIfNull(course.getStars3()));
+        stars.put(2, zeroIfNull(course.getStars2()));
+        stars.put(1, zeroIfNull(course.getStars1()));
+        return new RatingSummary(course.getRating(), (long) zeroIfNull(course.getRatingCount()), stars);
+    }
+
+    private static int zeroIfNull(Integer count) {
+        return count == null ? 0 : count;
+    }
+}
@@ -1,5 +1,6 @@
 package com.davistiba.wedemyserver.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.ToString;
 
@@ -13,6 +14,8 @@ public class ReviewDTO {
     private Integer rating;
     private Instant updatedAt;
     private String fullname;
+    @JsonIgnore
+    private Instant createdAt; //<-- only for keyset paging
 
     public ReviewDTO(Integer id, String content, Integer rating, Instant updatedAt, String fullname) {
         this.id = id;
@@ -22,6 +25,11 @@ public class ReviewDTO {
         this.fullname = fullname;
     }
 
+    public ReviewDTO(Integer id, String content, Integer rating, Instant updatedAt, String fullname, Instant createdAt) {
+        this(id, content, rating, updatedAt, fullname);
+        this.createdAt = createdAt;
+    }
+
     public ReviewDTO() {
     }
 }
@@ -19,10 +19,10 @@ public class SalesDTO {
     private Instant createdAt;
     private String paymentMethod;
     private BigDecimal totalPaid;
-    private Long numOfItems;
+    private Integer numOfItems;
 
 
-    public SalesDTO(String transactionId, Instant createdAt, String paymentMethod, BigDecimal totalPaid, Long numOfItems) {
+    public SalesDTO(String transactionId, Instant createdAt, String paymentMethod, BigDecimal totalPaid, Integer numOfItems) {
         this.transactionId = transactionId;
         this.createdAt = createdAt;
         this.paymentMethod = paymentMethod;
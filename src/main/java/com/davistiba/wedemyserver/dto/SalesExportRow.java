@@ -0,0 +1,29 @@
+package com.davistiba.wedemyserver.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * NOT A TABLE
+ * One sale in finance export
+ */
+@Getter
+@AllArgsConstructor
+public class SalesExportRow implements ExportRow {
+    public static final String[] HEADER = {"transaction_id", "created_at", "user_id", "payment_method", "total_paid", "num_of_items"};
+
+    private String transactionId;
+    private Instant createdAt;
+    private Integer userId;
+    private String paymentMethod;
+    private BigDecimal totalPaid;
+    private Integer numOfItems;
+
+    @Override
+    public Object[] csvValues() {
+        return new Object[]{transactionId, createdAt, userId, paymentMethod, totalPaid, numOfItems};
+    }
+}
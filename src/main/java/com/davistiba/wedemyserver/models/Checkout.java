@@ -0,0 +1,93 @@
+package com.davistiba.wedemyserver.models;
+
+import com.davistiba.wedemyserver.dto.CheckoutRequest;
+import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One async checkout request. Created as PENDING, finished by CheckoutWorker.
+ * The payment nonce is kept only until the gateway has been called.
+ */
+@Entity
+@Table(name = "checkouts",
+        indexes = {@Index(name = "IDX_STATUS_UPDATED", columnList = "status, updated_at")})
+@Getter
+@RequiredArgsConstructor
+public class Checkout {
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @JsonBackReference
+    private User user;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 12)
+    private CheckoutState status = CheckoutState.PENDING;
+
+    @JsonIgnore
+    private String nonce;
+
+    @Column(precision = 6, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Column(nullable = false, length = 30)
+    private String paymentMethod;
+
+    /* from payment gateway, once charged */
+    @Column(length = 20)
+    private String transactionId;
+
+    private String message;
+
+    @CreationTimestamp
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    public Checkout(User user, CheckoutRequest request) {
+        this.user = user;
+        this.nonce = request.getNonce();
+        this.totalAmount = request.getTotalAmount();
+        this.paymentMethod = request.getPaymentMethod();
+    }
+
+    /* the original request, rebuilt for the worker */
+    @JsonIgnore
+    public CheckoutRequest toRequest() {
+        return new CheckoutRequest(nonce, totalAmount, paymentMethod);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        Checkout checkout = (Checkout) o;
+        return id != null && Objects.equals(id, checkout.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
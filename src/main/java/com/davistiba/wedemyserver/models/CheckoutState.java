@@ -0,0 +1,16 @@
+package com.davistiba.wedemyserver.models;
+
+/**
+ * [NOT A TABLE]
+ * Lifecycle of an async checkout: PENDING -> PROCESSING -> COMPLETED | FAILED
+ */
+public enum CheckoutState {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -1,5 +1,6 @@
 package com.davistiba.wedemyserver.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -52,6 +53,29 @@ public class Course implements Serializable {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private BigDecimal rating;
 
+    /* running totals behind `rating`, and how many reviews gave 1..5 stars.
+       NULL only until first rebuild from reviews */
+    @JsonIgnore
+    private Long ratingSum = 0L;
+
+    @JsonIgnore
+    private Integer ratingCount = 0;
+
+    @JsonIgnore
+    private Integer stars1 = 0;
+
+    @JsonIgnore
+    private Integer stars2 = 0;
+
+    @JsonIgnore
+    private Integer stars3 = 0;
+
+    @JsonIgnore
+    private Integer stars4 = 0;
+
+    @JsonIgnore
+    private Integer stars5 = 0;
+
     @NotBlank
     @URL
     private String thumbUrl;
@@ -0,0 +1,22 @@
+package com.davistiba.wedemyserver.models;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * [NOT A TABLE]
+ * Fired (in-process) whenever a Course is created, modified or removed,
+ * on this node or on any other node.
+ */
+@Getter
+public class CourseChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 6923400871224650321L;
+
+    private final Integer courseId;
+
+    public CourseChangedEvent(Object source, Integer courseId) {
+        super(source);
+        this.courseId = courseId;
+    }
+}
@@ -12,7 +12,9 @@ import javax.persistence.*;
 import java.util.Objects;
 
 /**
- * THIS IS JOINT TABLE BETWEEN Enrollment and Lessons
+ * THIS IS JOINT TABLE BETWEEN Enrollment and Lessons.
+ * LEGACY: watched lessons now live in {@link Enrollment#getWatchedLessons()}.
+ * Kept only as source for migrating older enrollments.
  */
 @Entity
 @Getter
@@ -1,6 +1,7 @@
 package com.davistiba.wedemyserver.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -48,6 +49,19 @@ public class Enrollment {
     @ColumnDefault(value = "1")
     private Integer nextPosition = 1;
 
+    /**
+     * Watched lessons as a bitset (java.util.BitSet bytes): bit N set means lesson at position N was watched.
+     * NULL only for enrollments not yet migrated from `enroll_progress`.
+     * 1024 bytes hold positions up to {@link com.davistiba.wedemyserver.dto.CourseOutline#MAX_POSITION}
+     */
+    @JsonIgnore
+    @Column(columnDefinition = "VARBINARY(1024)")
+    private byte[] watchedLessons = new byte[0];
+
+    /* number of bits set in watchedLessons */
+    @JsonIgnore
+    private Integer watchedCount = 0;
+
     @ColumnDefault("0")
     @Max(100)
     @Column(nullable = false, precision = 6, scale = 2)
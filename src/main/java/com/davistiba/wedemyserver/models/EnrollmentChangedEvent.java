@@ -0,0 +1,22 @@
+package com.davistiba.wedemyserver.models;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * [NOT A TABLE]
+ * Fired (in-process) when a user's enrollments change in a way
+ * the student summary can see: new enrollments, or a course completed.
+ */
+@Getter
+public class EnrollmentChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 2288173916040351874L;
+
+    private final Integer userId;
+
+    public EnrollmentChangedEvent(Object source, Integer userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
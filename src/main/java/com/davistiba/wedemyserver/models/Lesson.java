@@ -1,6 +1,7 @@
 package com.davistiba.wedemyserver.models;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -66,6 +67,12 @@ public class Lesson {
                 Duration.ofSeconds(this.lengthSeconds).toSecondsPart());
     }
 
+    /* raw length. JSON only shows mm:ss */
+    @JsonIgnore
+    public Integer getLengthInSeconds() {
+        return this.lengthSeconds;
+    }
+
     @Override
     public int hashCode() {
         return getClass().hashCode();
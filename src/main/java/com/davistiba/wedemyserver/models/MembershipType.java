@@ -0,0 +1,9 @@
+package com.davistiba.wedemyserver.models;
+
+/**
+ * [NOT A TABLE]
+ * Which per-user course set, kept in Redis for fast status checks
+ */
+public enum MembershipType {
+    CART, WISHLIST, OWNED
+}
@@ -0,0 +1,65 @@
+package com.davistiba.wedemyserver.models;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Side effect to run after a transaction commits (transactional outbox).
+ * Written in the same transaction as the change, deleted once delivered.
+ * Kept with `dead_at` set when delivery keeps failing, for someone to look at.
+ */
+@Entity
+@Table(name = "outbox")
+@Getter
+@RequiredArgsConstructor
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private OutboxType type;
+
+    /* JSON */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    /* failed deliveries so far */
+    @Column(nullable = false)
+    private Integer attempts = 0;
+
+    /* claimed by a node for delivery until then. NULL: free */
+    private Instant lockedUntil;
+
+    /* gave up after outbox.max-attempts (dead letter). NULL: still delivered */
+    private Instant deadAt;
+
+    @CreationTimestamp
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    public OutboxMessage(OutboxType type, String payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        OutboxMessage that = (OutboxMessage) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,9 @@
+package com.davistiba.wedemyserver.models;
+
+/**
+ * [NOT A TABLE]
+ * Kinds of outbox messages. Each has its own payload class, see OutboxService
+ */
+public enum OutboxType {
+    CHECKOUT_COMPLETED
+}
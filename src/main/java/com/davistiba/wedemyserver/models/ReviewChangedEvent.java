@@ -0,0 +1,29 @@
+package com.davistiba.wedemyserver.models;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * [NOT A TABLE]
+ * Fired (in-process) when a review is added or its rating edited.
+ * Listeners see it only after the review is committed.
+ */
+@Getter
+public class ReviewChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = -3150841946618253077L;
+
+    private final Integer courseId;
+
+    /* NULL for a new review */
+    private final Integer oldRating;
+
+    private final Integer newRating;
+
+    public ReviewChangedEvent(Object source, Integer courseId, Integer oldRating, Integer newRating) {
+        super(source);
+        this.courseId = courseId;
+        this.oldRating = oldRating;
+        this.newRating = newRating;
+    }
+}
@@ -0,0 +1,12 @@
+package com.davistiba.wedemyserver.models;
+
+/**
+ * [NOT A TABLE]
+ * What a sales rollup row is grouped by.
+ * TOTAL has empty key, COURSE is keyed by course id, CATEGORY by category name
+ */
+public enum RollupDimension {
+    TOTAL,
+    COURSE,
+    CATEGORY
+}
@@ -0,0 +1,27 @@
+package com.davistiba.wedemyserver.models;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * [NOT A TABLE]
+ * Size of one sales rollup bucket. Buckets start on UTC hour/day boundaries
+ */
+public enum RollupGranularity {
+    HOURLY(ChronoUnit.HOURS),
+    DAILY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /* start of the bucket containing this instant */
+    @NotNull
+    public Instant bucketOf(@NotNull Instant instant) {
+        return instant.truncatedTo(unit);
+    }
+}
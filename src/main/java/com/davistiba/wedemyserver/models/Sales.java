@@ -18,7 +18,8 @@ import java.time.Instant;
 import java.util.Objects;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales",
+        indexes = {@Index(name = "IDX_USER_CREATED", columnList = "user_id, created_at")})
 @Getter
 @RequiredArgsConstructor
 public class Sales {
@@ -41,17 +42,21 @@ public class Sales {
     @NotBlank
     private String paymentMethod;
 
+    /* number of order items, stored at checkout. NULL only for sales older than this column */
+    private Integer numOfItems;
+
     @CreationTimestamp
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @Column(nullable = false)
     private Instant createdAt;
 
 
-    public Sales(String transactionId, User user, BigDecimal totalPaid, String paymentMethod) {
+    public Sales(String transactionId, User user, BigDecimal totalPaid, String paymentMethod, Integer numOfItems) {
         this.transactionId = transactionId;
         this.user = user;
         this.totalPaid = totalPaid;
         this.paymentMethod = paymentMethod.toUpperCase();
+        this.numOfItems = numOfItems;
     }
 
     @Override
@@ -0,0 +1,65 @@
+package com.davistiba.wedemyserver.models;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Pre-aggregated sales per hour/day, for whole store, per course and per category.
+ * Updated at each checkout, rebuilt by backfill. See SalesRollupService
+ */
+@Entity
+@Table(name = "sales_rollups",
+        uniqueConstraints = {@UniqueConstraint(name = "UQ_ROLLUP_BUCKET",
+                columnNames = {"granularity", "dimension", "dimension_key", "bucket_start"})},
+        indexes = {@Index(name = "IDX_ROLLUP_TIME", columnList = "granularity, dimension, bucket_start")})
+@Getter
+@RequiredArgsConstructor
+public class SalesRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupDimension dimension;
+
+    /* '' for TOTAL, else course id or category */
+    @Column(nullable = false, length = 50)
+    private String dimensionKey;
+
+    /* UTC start of hour or day */
+    @Column(nullable = false)
+    private Instant bucketStart;
+
+    @Column(precision = 12, scale = 2, nullable = false)
+    private BigDecimal revenue;
+
+    @Column(nullable = false)
+    private Long orderCount;
+
+    @Column(nullable = false)
+    private Long itemsSold;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+        SalesRollup that = (SalesRollup) o;
+        return id != null && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
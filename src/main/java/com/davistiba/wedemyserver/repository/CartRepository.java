@@ -1,6 +1,7 @@
 package com.davistiba.wedemyserver.repository;
 
 import com.davistiba.wedemyserver.models.Cart;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -9,6 +10,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface CartRepository extends CrudRepository<Cart, Integer> {
@@ -27,6 +29,12 @@ public interface CartRepository extends CrudRepository<Cart, Integer> {
     int checkIfCourseInCart(Integer userId, Integer courseId);
     //FASTER, BUT UNFORTUNATELY IT RETURNS int (MySQL), NOT BOOLEAN.
 
+    @Query(value = "SELECT c.course.id FROM Cart c WHERE c.user.id = ?1")
+    List<Integer> findCourseIdsByUserId(Integer userId);
+
+    @Query(value = "SELECT c FROM Cart c JOIN FETCH c.course WHERE c.user.id = ?1 AND c.id < ?2 ORDER BY c.id DESC")
+    List<Cart> findByUserIdBefore(Integer userId, Integer cartId, Pageable pageable);
+
     @Query(value = "SELECT COUNT(c) FROM Cart c WHERE c.user.id = ?1")
     long countCartByUserIdEquals(Integer userId);
 
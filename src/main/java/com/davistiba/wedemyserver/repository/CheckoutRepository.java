@@ -0,0 +1,47 @@
+package com.davistiba.wedemyserver.repository;
+
+import com.davistiba.wedemyserver.models.Checkout;
+import com.davistiba.wedemyserver.models.CheckoutState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface CheckoutRepository extends CrudRepository<Checkout, UUID> {
+
+    @Query("SELECT c FROM Checkout c WHERE c.id = ?1 AND c.user.id = ?2")
+    Optional<Checkout> findByIdAndUserId(UUID id, Integer userId);
+
+    @Query("SELECT c FROM Checkout c INNER JOIN FETCH c.user WHERE c.id = ?1")
+    Optional<Checkout> findWithUserById(UUID id);
+
+    /* compare-and-set. Returns 0 if status was not `from` (e.g. taken by another node) */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Checkout c SET c.status = ?3, c.updatedAt = ?4 WHERE c.id = ?1 AND c.status = ?2")
+    int updateStatus(UUID id, CheckoutState from, CheckoutState to, Instant updatedAt);
+
+    /* nonce is single-use, so it is dropped once finished */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Checkout c SET c.status = ?2, c.transactionId = ?3, c.message = ?4, c.nonce = NULL, " +
+            "c.updatedAt = ?5 WHERE c.id = ?1")
+    int finish(UUID id, CheckoutState status, String transactionId, String message, Instant updatedAt);
+
+    @Query("SELECT c.id FROM Checkout c WHERE c.status = ?1 AND c.updatedAt < ?2 ORDER BY c.updatedAt")
+    List<UUID> findIdsByStatusUpdatedBefore(CheckoutState status, Instant before, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Checkout c SET c.status = ?3, c.message = ?4, c.nonce = NULL, c.updatedAt = ?5 " +
+            "WHERE c.status = ?1 AND c.updatedAt < ?2")
+    int updateStaleStatus(CheckoutState status, Instant before, CheckoutState to, String message, Instant updatedAt);
+}
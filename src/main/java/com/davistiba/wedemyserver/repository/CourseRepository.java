@@ -4,13 +4,13 @@ import com.davistiba.wedemyserver.dto.CategoryDTO;
 import com.davistiba.wedemyserver.models.Course;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import javax.validation.constraints.NotBlank;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -21,13 +21,69 @@ public interface CourseRepository extends CrudRepository<Course, Integer> {
 
     List<Course> getTop6CoursesByIsFeatured(boolean isFeatured);
 
-    Slice<Course> getCoursesByTitleContaining(@Param("title") String title, Pageable pageable);
-
     @Query(value = "SELECT new com.davistiba.wedemyserver.dto.CategoryDTO(MAX(c.id), c.category) FROM Course c GROUP BY c.category")
     List<CategoryDTO> getAllDistinctCategories();
 
     List<Course> findCoursesByIdIn(Collection<Integer> ids);
 
+    /* no review of course ?1 written after ?2: its rating changes were all applied (see RatingRefresher) */
+    String REVIEWS_SETTLED = "NOT EXISTS (SELECT 1 FROM reviews q WHERE q.course_id = ?1 " +
+            "AND COALESCE(q.updated_at, q.created_at) > ?2)";
+
+    /* recount from reviews, append the WHERE */
+    String RECOUNT_SQL = "UPDATE courses c, (SELECT COUNT(*) AS n, COALESCE(SUM(rating), 0) AS s, " +
+            "COALESCE(SUM(rating = 1), 0) AS s1, COALESCE(SUM(rating = 2), 0) AS s2, COALESCE(SUM(rating = 3), 0) AS s3, " +
+            "COALESCE(SUM(rating = 4), 0) AS s4, COALESCE(SUM(rating = 5), 0) AS s5 FROM reviews WHERE course_id = ?1) r " +
+            "SET c.rating = IF(r.n > 0, TRUNCATE(r.s / r.n, 2), c.rating), c.rating_sum = r.s, c.rating_count = r.n, " +
+            "c.stars1 = r.s1, c.stars2 = r.s2, c.stars3 = r.s3, c.stars4 = r.s4, c.stars5 = r.s5 ";
+
+    /**
+     * Courses whose totals don't match their reviews (or were never filled).
+     * Courses with reviews written after {@code settledBefore} are skipped: their deltas may not be applied yet
+     */
+    @Query(value = "SELECT c.id FROM courses c LEFT JOIN (SELECT course_id, COUNT(*) AS n, SUM(rating) AS s, " +
+            "SUM(rating = 1) AS s1, SUM(rating = 2) AS s2, SUM(rating = 3) AS s3, SUM(rating = 4) AS s4, SUM(rating = 5) AS s5 " +
+            "FROM reviews GROUP BY course_id) r ON r.course_id = c.id " +
+            "WHERE NOT (c.rating_count <=> COALESCE(r.n, 0) AND c.rating_sum <=> COALESCE(r.s, 0) " +
+            "AND c.stars1 <=> COALESCE(r.s1, 0) AND c.stars2 <=> COALESCE(r.s2, 0) AND c.stars3 <=> COALESCE(r.s3, 0) " +
+            "AND c.stars4 <=> COALESCE(r.s4, 0) AND c.stars5 <=> COALESCE(r.s5, 0)) " +
+            "AND NOT EXISTS (SELECT 1 FROM reviews q WHERE q.course_id = c.id " +
+            "AND COALESCE(q.updated_at, q.created_at) > ?1)", nativeQuery = true)
+    List<Integer> findIdsWithDriftedRatingStats(Instant settledBefore);
+
+    /**
+     * Recount rating totals, star counts and rating of one course from its reviews.
+     * Idempotent, so safe to repeat or run concurrently
+     */
+    @Modifying
+    @Query(value = RECOUNT_SQL + "WHERE c.id = ?1", nativeQuery = true)
+    int rebuildRatingStats(Integer courseId);
+
+    /**
+     * Same as {@link #rebuildRatingStats}, unless a review of the course was written after {@code settledBefore}
+     * (checked in the same statement, so a review committed meanwhile is never counted twice)
+     */
+    @Modifying
+    @Query(value = RECOUNT_SQL + "WHERE c.id = ?1 AND " + REVIEWS_SETTLED, nativeQuery = true)
+    int rebuildSettledRatingStats(Integer courseId, Instant settledBefore);
+
+    /**
+     * Add rating changes of several reviews in one statement. O(1) however many reviews.
+     * (`rating` is assigned first: MySQL applies SET left to right)
+     * Does nothing if totals were never built (NULL), then use {@link #rebuildRatingStats}
+     *
+     * @param ratingDelta added to sum of ratings
+     * @param countDelta  added to number of reviews
+     * @param s1          added to 1-star count. Likewise s2..s5
+     */
+    @Modifying
+    @Query(value = "UPDATE courses SET " +
+            "rating = IF(rating_count + ?3 > 0, TRUNCATE((rating_sum + ?2) / (rating_count + ?3), 2), rating), " +
+            "rating_sum = rating_sum + ?2, rating_count = rating_count + ?3, stars1 = stars1 + ?4, stars2 = stars2 + ?5, " +
+            "stars3 = stars3 + ?6, stars4 = stars4 + ?7, stars5 = stars5 + ?8 " +
+            "WHERE id = ?1 AND rating_count IS NOT NULL AND stars1 IS NOT NULL", nativeQuery = true)
+    int addRatingStats(Integer courseId, long ratingDelta, int countDelta, int s1, int s2, int s3, int s4, int s5);
+
     @Query(value = "SELECT c FROM Course c JOIN Wishlist w on w.course.id = c.id AND w.user.id = ?1 ORDER BY w.id DESC")
     Page<Course> getWishlistByUser(Integer userId, Pageable pageable);
 
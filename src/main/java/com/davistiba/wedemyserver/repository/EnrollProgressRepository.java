@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,6 +15,9 @@ public interface EnrollProgressRepository extends CrudRepository<EnrollProgress,
     @Query("SELECT count(e) FROM EnrollProgress e WHERE e.enrollment.id = ?1")
     long countByEnrollmentId(Long id);
 
+    @Query("SELECT e.lesson.position FROM EnrollProgress e WHERE e.enrollment.id = ?1")
+    List<Integer> findWatchedPositions(Long enrollmentId);
+
     @Query("SELECT e FROM EnrollProgress e WHERE e.enrollment.id = ?1 AND e.lesson.id = ?2")
     Optional<EnrollProgress> findByEnrollIdAndLessonId(Long enrollId, UUID lessonId);
 
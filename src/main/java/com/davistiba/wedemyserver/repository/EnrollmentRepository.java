@@ -1,30 +1,86 @@
 package com.davistiba.wedemyserver.repository;
 
+import com.davistiba.wedemyserver.dto.CourseCountDTO;
+import com.davistiba.wedemyserver.dto.EnrollmentCounts;
 import com.davistiba.wedemyserver.dto.EnrollmentDTO;
+import com.davistiba.wedemyserver.dto.EnrollmentExportRow;
 import com.davistiba.wedemyserver.models.Enrollment;
 import com.davistiba.wedemyserver.models.User;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface EnrollmentRepository extends CrudRepository<Enrollment, Long> {
     @Query("SELECT (COUNT(e) > 0) FROM Enrollment e WHERE e.user.id = ?1 AND e.course.id = ?2")
     boolean existsByUserIdAndCourseId(Integer userId, Integer courseId);
 
+    @Query("SELECT e.course.id FROM Enrollment e WHERE e.user.id = ?1")
+    List<Integer> findCourseIdsByUserId(Integer userId);
+
     long countEnrollmentByUserAndIsCompleted(User user, Boolean isCompleted);
 
     long countEnrollmentByUser(User user);
 
+    @Query("SELECT new com.davistiba.wedemyserver.dto.EnrollmentCounts(COUNT(e), " +
+            "COALESCE(SUM(CASE WHEN e.isCompleted = true THEN 1 ELSE 0 END), 0L)) FROM Enrollment e WHERE e.user.id = ?1")
+    EnrollmentCounts getCountsByUserId(Integer userId);
+
     @Query("SELECT new com.davistiba.wedemyserver.dto.EnrollmentDTO(e.id, e.progress, c.title, c.thumbUrl, c.id) FROM Enrollment e " +
             "INNER JOIN Course c ON e.course.id = c.id WHERE e.user.id = ?1 ORDER BY e.id DESC")
     List<EnrollmentDTO> findByUserId(Integer userId, Pageable pageable);
 
+    @Query("SELECT new com.davistiba.wedemyserver.dto.EnrollmentDTO(e.id, e.progress, c.title, c.thumbUrl, c.id) FROM Enrollment e " +
+            "INNER JOIN Course c ON e.course.id = c.id WHERE e.user.id = ?1 AND e.id < ?2 ORDER BY e.id DESC")
+    List<EnrollmentDTO> findByUserIdBefore(Integer userId, Long enrollmentId, Pageable pageable);
+
     @Query(value = "SELECT e FROM Enrollment e WHERE e.user.id = ?1 AND e.course.id = ?2")
     Optional<Enrollment> getByUserIdAndCourseId(Integer userId, Integer courseId);
 
+    /* locking read: latest committed value, not this transaction's snapshot */
+    @Query(value = "SELECT watched_lessons FROM enrollments WHERE id = ?1 FOR UPDATE", nativeQuery = true)
+    Optional<byte[]> lockWatchedLessons(Long enrollmentId);
+
+    /**
+     * Compare-and-set on the watched bitset, so concurrent updates never lose a lesson
+     *
+     * @return 0 if bitset was changed meanwhile. Re-read and retry
+     */
+    @Modifying
+    @Query(value = "UPDATE enrollments SET watched_lessons = ?3, watched_count = ?4, progress = ?5, is_completed = ?6, " +
+            "next_position = ?7, updated_at = ?8 WHERE id = ?1 AND watched_lessons = ?2", nativeQuery = true)
+    int updateWatchedLessons(Long enrollmentId, byte[] expected, byte[] watched, int watchedCount,
+                             BigDecimal progress, boolean isCompleted, Integer nextPosition, Instant updatedAt);
+
+    @Modifying
+    @Query(value = "UPDATE enrollments SET watched_lessons = ?2, watched_count = ?3 " +
+            "WHERE id = ?1 AND watched_lessons IS NULL", nativeQuery = true)
+    int initWatchedLessons(Long enrollmentId, byte[] watched, int watchedCount);
+
+    @Query("SELECT e.id FROM Enrollment e WHERE e.watchedLessons IS NULL AND e.id > ?1 ORDER BY e.id")
+    List<Long> findIdsWithoutWatchedLessons(Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.davistiba.wedemyserver.dto.CourseCountDTO(e.course.id, COUNT(e)) FROM Enrollment e GROUP BY e.course.id")
+    List<CourseCountDTO> countAllGroupByCourse();
+
+    /* for exports, see SalesRepository.streamForExport */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.davistiba.wedemyserver.dto.EnrollmentExportRow(e.id, e.createdAt, e.user.id, c.id, c.title, " +
+            "e.progress, e.isCompleted) FROM Enrollment e INNER JOIN e.course c WHERE e.createdAt >= ?1 AND e.createdAt < ?2")
+    Stream<EnrollmentExportRow> streamForExport(Instant from, Instant to);
+
 }
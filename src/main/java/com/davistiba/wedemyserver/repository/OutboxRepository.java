@@ -0,0 +1,49 @@
+package com.davistiba.wedemyserver.repository;
+
+import com.davistiba.wedemyserver.models.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxRepository extends CrudRepository<OutboxMessage, Long> {
+
+    /* not dead, not claimed right now */
+    @Query("SELECT m FROM OutboxMessage m WHERE m.id > ?1 AND m.createdAt < ?2 AND m.deadAt IS NULL " +
+            "AND (m.lockedUntil IS NULL OR m.lockedUntil < ?3) ORDER BY m.id")
+    List<OutboxMessage> findDeliverable(Long afterId, Instant before, Instant now, Pageable pageable);
+
+    /**
+     * Take a message for delivery, so other nodes skip it until lockedUntil
+     *
+     * @return 1 if claimed, 0 if delivered, dead or claimed by another node
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.lockedUntil = ?2 WHERE m.id = ?1 AND m.deadAt IS NULL " +
+            "AND (m.lockedUntil IS NULL OR m.lockedUntil < ?3)")
+    int claim(Long id, Instant lockedUntil, Instant now);
+
+    /* no error if already delivered elsewhere */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxMessage m WHERE m.id = ?1")
+    int deleteDelivered(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.lockedUntil = NULL WHERE m.id = ?1")
+    int addFailedAttempt(Long id);
+
+    /* last attempt failed: keep, but never deliver again */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxMessage m SET m.attempts = m.attempts + 1, m.lockedUntil = NULL, m.deadAt = ?2 WHERE m.id = ?1")
+    int markDead(Long id, Instant deadAt);
+}
@@ -8,6 +8,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,6 +22,16 @@ public interface ReviewRepository extends PagingAndSortingRepository<Review, Int
             "FROM Review r INNER JOIN User u on r.user.id = u.id WHERE r.course.id = ?1")
     Slice<ReviewDTO> findByCourseId(Integer courseId, Pageable pageable);
 
+    @Query("SELECT new com.davistiba.wedemyserver.dto.ReviewDTO(r.id, r.content, r.rating, r.updatedAt, u.fullname, r.createdAt) " +
+            "FROM Review r INNER JOIN User u on r.user.id = u.id WHERE r.course.id = ?1 " +
+            "AND (r.createdAt < ?2 OR (r.createdAt = ?2 AND r.id < ?3)) ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewDTO> findByCourseIdCreatedBefore(Integer courseId, Instant createdAt, Integer id, Pageable pageable);
+
+    @Query("SELECT new com.davistiba.wedemyserver.dto.ReviewDTO(r.id, r.content, r.rating, r.updatedAt, u.fullname, r.createdAt) " +
+            "FROM Review r INNER JOIN User u on r.user.id = u.id WHERE r.course.id = ?1 " +
+            "AND (r.rating < ?2 OR (r.rating = ?2 AND r.id < ?3)) ORDER BY r.rating DESC, r.id DESC")
+    List<ReviewDTO> findByCourseIdRatedBelow(Integer courseId, Integer rating, Integer id, Pageable pageable);
+
     @Query(value = "SELECT AVG(r.rating) from Review r where r.course.id = ?1")
     double getAverageByCourseId(Integer courseId);
 
@@ -1,23 +1,54 @@
 package com.davistiba.wedemyserver.repository;
 
 import com.davistiba.wedemyserver.dto.SalesDTO;
+import com.davistiba.wedemyserver.dto.SalesExportRow;
 import com.davistiba.wedemyserver.models.Sales;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface SalesRepository extends CrudRepository<Sales, String> {
 
     Slice<Sales> findByCreatedAtBetween(Instant createdAtStart, Instant createdAtEnd);
 
-    @Query("SELECT new com.davistiba.wedemyserver.dto.SalesDTO(s.transactionId,s.createdAt, s.paymentMethod, s.totalPaid, count(o)) " +
-            "FROM Sales s JOIN OrderItem o ON s.transactionId = o.sale.transactionId WHERE s.user.id = ?1 GROUP BY s.transactionId")
+    //both read index (user_id, created_at) in order. No join, no grouping
+    @Query("SELECT new com.davistiba.wedemyserver.dto.SalesDTO(s.transactionId,s.createdAt, s.paymentMethod, s.totalPaid, s.numOfItems) " +
+            "FROM Sales s WHERE s.user.id = ?1")
     Slice<SalesDTO> findByUserIdOrderByCreatedAtDesc(Integer userId, Pageable pageable);
 
+    @Query("SELECT new com.davistiba.wedemyserver.dto.SalesDTO(s.transactionId,s.createdAt, s.paymentMethod, s.totalPaid, s.numOfItems) " +
+            "FROM Sales s WHERE s.user.id = ?1 AND (s.createdAt < ?2 OR (s.createdAt = ?2 AND s.transactionId < ?3)) " +
+            "ORDER BY s.createdAt DESC, s.transactionId DESC")
+    List<SalesDTO> findByUserIdCreatedBefore(Integer userId, Instant createdAt, String transactionId, Pageable pageable);
+
+    /**
+     * For exports. Must be consumed (and closed) inside a read-only transaction.
+     * Fetch size MIN_VALUE makes MySQL send rows one by one instead of the whole result
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new com.davistiba.wedemyserver.dto.SalesExportRow(s.transactionId, s.createdAt, s.user.id, " +
+            "s.paymentMethod, s.totalPaid, s.numOfItems) FROM Sales s WHERE s.createdAt >= ?1 AND s.createdAt < ?2")
+    Stream<SalesExportRow> streamForExport(Instant from, Instant to);
+
+    /* sales created before num_of_items existed */
+    @Modifying
+    @Query(value = "UPDATE sales s SET s.num_of_items = (SELECT COUNT(*) FROM order_items o " +
+            "WHERE o.transaction_id = s.transaction_id) WHERE s.num_of_items IS NULL", nativeQuery = true)
+    int initNumOfItems();
+
 
 }
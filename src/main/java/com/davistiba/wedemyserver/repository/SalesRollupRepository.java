@@ -0,0 +1,26 @@
+package com.davistiba.wedemyserver.repository;
+
+import com.davistiba.wedemyserver.models.RollupDimension;
+import com.davistiba.wedemyserver.models.RollupGranularity;
+import com.davistiba.wedemyserver.models.SalesRollup;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends CrudRepository<SalesRollup, Long> {
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.granularity = ?1 AND r.dimension = ?2 AND r.dimensionKey = ?3 " +
+            "AND r.bucketStart >= ?4 AND r.bucketStart < ?5 ORDER BY r.bucketStart")
+    List<SalesRollup> findRange(RollupGranularity granularity, RollupDimension dimension, String key,
+                                Instant from, Instant to);
+
+    @Query("SELECT r FROM SalesRollup r WHERE r.granularity = ?1 AND r.dimension = ?2 " +
+            "AND r.bucketStart >= ?3 AND r.bucketStart < ?4 ORDER BY r.bucketStart, r.dimensionKey")
+    List<SalesRollup> findRangeAllKeys(RollupGranularity granularity, RollupDimension dimension,
+                                       Instant from, Instant to);
+
+}
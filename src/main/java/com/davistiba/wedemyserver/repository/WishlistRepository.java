@@ -1,6 +1,7 @@
 package com.davistiba.wedemyserver.repository;
 
 import com.davistiba.wedemyserver.models.Wishlist;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
@@ -8,6 +9,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface WishlistRepository extends CrudRepository<Wishlist, Integer> {
@@ -20,11 +22,17 @@ public interface WishlistRepository extends CrudRepository<Wishlist, Integer> {
     int checkIfExistWishlistNative(Integer userId, Integer courseId);
     //^FASTER, BUT RETURNS int (1 | 0), NOT BOOLEAN.
 
+    @Query(value = "SELECT w.course.id FROM Wishlist w WHERE w.user.id = ?1")
+    List<Integer> findCourseIdsByUserId(Integer userId);
+
     @Modifying
     @Transactional
     @Query(value = "DELETE FROM Wishlist w where w.user.id = ?1 and w.course.id in ?2")
     int deleteByUserIdAndCoursesIn(Integer userId, Collection<Integer> courseId);
 
+    @Query(value = "SELECT w FROM Wishlist w JOIN FETCH w.course WHERE w.user.id = ?1 AND w.id < ?2 ORDER BY w.id DESC")
+    List<Wishlist> findByUserIdBefore(Integer userId, Integer wishlistId, Pageable pageable);
+
     @Modifying
     @Transactional
     @Query(value = "INSERT INTO wishlist(created_at, course_id, user_id) VALUES (UTC_TIMESTAMP(), ?, ?)", nativeQuery = true)
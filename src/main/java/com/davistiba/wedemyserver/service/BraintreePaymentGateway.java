@@ -0,0 +1,58 @@
+package com.davistiba.wedemyserver.service;
+
+import com.braintreegateway.*;
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * THIS MODIFIED CODE TAKEN FROM THE OFFICIAL Braintree Github
+ * https://github.com/braintree/braintree_spring_example
+ */
+@Service("paymentGatewayTarget") //<-- wrapped by ResilientPaymentGateway
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "braintree", matchIfMissing = true)
+public class BraintreePaymentGateway implements PaymentGateway {
+
+    @Autowired
+    private BraintreeGateway gateway;
+
+    @Override
+    public String generateClientToken() {
+        return gateway.clientToken().generate();
+    }
+
+    @Override
+    public PaymentResult sale(BigDecimal amount, String nonce, User user) {
+        TransactionRequest transactionRequest = new TransactionRequest()
+                .amount(amount)
+                .paymentMethodNonce(nonce)
+                .billingAddress()  // <-- (OPTIONAL, see official docs)
+                .firstName(user.getFullname())
+                .lastName(user.getEmail())
+                .done()
+                .options()
+                .submitForSettlement(true)
+                .done();
+
+        Result<Transaction> result = gateway.transaction().sale(transactionRequest);
+
+        // listen for Transaction Result
+        if (result.isSuccess()) {
+            return PaymentResult.success(result.getTarget().getId());
+        } else if (result.getTransaction() != null) {
+            return PaymentResult.success(result.getTransaction().getId());
+        }
+        //Oops! FAIL ☹
+        List<String> errorList = new ArrayList<>();
+        for (ValidationError error : result.getErrors().getAllDeepValidationErrors()) {
+            errorList.add(error.getMessage());
+        }
+        return PaymentResult.fail(errorList.toString());
+    }
+}
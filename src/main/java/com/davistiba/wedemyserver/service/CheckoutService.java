@@ -1,24 +1,36 @@
 package com.davistiba.wedemyserver.service;
 
+import com.davistiba.wedemyserver.dto.CheckoutCompleted;
 import com.davistiba.wedemyserver.dto.CheckoutRequest;
 import com.davistiba.wedemyserver.models.*;
 import com.davistiba.wedemyserver.repository.*;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 public class CheckoutService {
 
-    @Autowired
-    private OrderItemRepository orderItemRepository;
+    private static final String INSERT_ORDER_ITEM_SQL = "INSERT INTO order_items (transaction_id, course_id) VALUES (?, ?)";
+
+    /* column values are taken from a new Enrollment, see enrollmentRow */
+    private static final String INSERT_ENROLLMENT_SQL = "INSERT INTO enrollments (user_id, course_id, is_completed, " +
+            "next_position, watched_lessons, watched_count, progress, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     @Autowired
     private CartRepository cartRepository;
@@ -30,46 +42,91 @@ public class CheckoutService {
     private CourseRepository courseRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private SalesRepository salesRepository;
 
     @Autowired
-    private SalesRepository salesRepository;
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private SalesRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
 
     /**
      * Process all courses in Cart.
      * Save batch as single Sale.
-     * Insert each item to OrderItems.
+     * Insert each item to OrderItems (one batched statement).
      * Then insert each distinct item to Enrollment table.
-     * Finally, clear Cart of current user.
+     * Clear Cart of current user.
+     * Finally, add the sale to hourly/daily rollups.
      */
     @Transactional
     public MyCustomResponse processCheckoutDatabase(String transactionId,
                                                     @NotNull CheckoutRequest request,
                                                     User user) {
 
-        List<OrderItem> orderItemList = new ArrayList<>();
-        List<Enrollment> enrollments = new ArrayList<>();
         Page<Course> coursePage = courseRepository.getCartListByUser(user.getId(), Pageable.unpaged());
 
         //===== begin DB OPERATIONS ========
         Sales savedSale = salesRepository.save(
-                new Sales(transactionId, user, request.getTotalAmount(), request.getPaymentMethod()));
-
-        coursePage.get().forEach(course -> {
-            OrderItem o = new OrderItem(savedSale, course);
-            orderItemList.add(o);
-
-            Enrollment e = new Enrollment(user, course);
-            enrollments.add(e);
-        });
+                new Sales(transactionId, user, request.getTotalAmount(), request.getPaymentMethod(),
+                        coursePage.getNumberOfElements()));
+        entityManager.flush(); //sale row must exist before its order items
 
         List<Integer> courseIds = coursePage.get().map(Course::getId).collect(Collectors.toUnmodifiableList());
 
-        orderItemRepository.saveAll(orderItemList);
-        enrollmentRepository.saveAll(enrollments);
+        // IDENTITY ids turn off Hibernate batching, so insert all rows in one JDBC batch each
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> orderItems = new ArrayList<>(courseIds.size());
+        List<Object[]> enrollments = new ArrayList<>(courseIds.size());
+        for (Course course : coursePage) {
+            orderItems.add(new Object[]{transactionId, course.getId()});
+            enrollments.add(this.enrollmentRow(new Enrollment(user, course), now));
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER_ITEM_SQL, orderItems);
+        jdbcTemplate.batchUpdate(INSERT_ENROLLMENT_SQL, enrollments);
         cartRepository.deleteByUserIdAndCoursesIn(user.getId(), courseIds);
         wishlistRepository.deleteByUserIdAndCoursesIn(user.getId(), courseIds);
+        rollupService.record(savedSale, coursePage.getContent());
         //-----------------------------------------------
+        // (after commit) refresh user's course sets, summary
+        outboxService.add(OutboxType.CHECKOUT_COMPLETED, new CheckoutCompleted(user.getId(), courseIds));
         return new MyCustomResponse("Successfully paid USD " + request.getTotalAmount());
     }
+
+    /* same values Hibernate would insert for this entity (incl. @CreationTimestamp, @UpdateTimestamp) */
+    @NotNull
+    private Object[] enrollmentRow(@NotNull Enrollment enrollment, Timestamp now) {
+        return new Object[]{enrollment.getUser().getId(), enrollment.getCourse().getId(), enrollment.getIsCompleted(),
+                enrollment.getNextPosition(), enrollment.getWatchedLessons(), enrollment.getWatchedCount(),
+                enrollment.getProgress(), now, now};
+    }
+
+    /**
+     * Finish an async checkout, once charged. Same as {@link #processCheckoutDatabase},
+     * plus marks the checkout COMPLETED in the same transaction
+     */
+    @Transactional
+    public MyCustomResponse completeCheckout(UUID checkoutId, String transactionId,
+                                             @NotNull CheckoutRequest request, User user) {
+        MyCustomResponse response = this.processCheckoutDatabase(transactionId, request, user);
+        checkoutRepository.finish(checkoutId, CheckoutState.COMPLETED, transactionId, response.getMessage(), Instant.now());
+        return response;
+    }
+
+    /**
+     * Fill item count of older sales (one-off, after upgrade)
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void initNumOfItems() {
+        salesRepository.initNumOfItems();
+    }
 }
@@ -0,0 +1,181 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CheckoutRequest;
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.Checkout;
+import com.davistiba.wedemyserver.models.CheckoutState;
+import com.davistiba.wedemyserver.models.User;
+import com.davistiba.wedemyserver.repository.CheckoutRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Async checkout: request is saved as PENDING and answered at once.
+ * A bounded pool then calls the payment gateway and runs the DB transaction,
+ * so a slow gateway never holds request threads.
+ * Clients poll, or long-poll via {@link #watch}. The long-poll may wait on another node than the one
+ * processing, so finished checkouts are announced to all nodes (Redis pub/sub).
+ */
+@Slf4j
+@Service
+public class CheckoutWorker {
+
+    public static final String CHANNEL = "wedemy:checkout-finished";
+
+    /* PENDING this long was never picked up (node stopped, or queue lost) */
+    private static final Duration PENDING_TIMEOUT = Duration.ofMinutes(1);
+
+    /* PROCESSING this long was interrupted midway. Gateway result is unknown */
+    private static final Duration PROCESSING_TIMEOUT = Duration.ofMinutes(10);
+
+    @Autowired
+    private CheckoutRepository checkoutRepository;
+
+    @Autowired
+    private CheckoutService checkoutService;
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    @Qualifier("checkoutExecutor")
+    private ThreadPoolTaskExecutor checkoutExecutor;
+
+    /* long-polls waiting on this node, by checkout */
+    private final ConcurrentHashMap<UUID, Set<DeferredResult<Checkout>>> waiters = new ConcurrentHashMap<>();
+
+    /**
+     * Save as PENDING and queue for processing
+     *
+     * @return the pending checkout
+     * @throws TaskRejectedException if too many checkouts are queued. Checkout is then FAILED, nothing charged
+     */
+    public Checkout submit(@NotNull CheckoutRequest request, @NotNull User user) {
+        Checkout checkout = checkoutRepository.save(new Checkout(user, request));
+        try {
+            checkoutExecutor.execute(() -> this.process(checkout.getId()));
+        } catch (TaskRejectedException e) {
+            checkoutRepository.finish(checkout.getId(), CheckoutState.FAILED, null,
+                    "Too many checkouts right now. Please try again", Instant.now());
+            throw e;
+        }
+        return checkout;
+    }
+
+    /**
+     * Charge, then save purchase. Runs on checkout pool.
+     * Does nothing if another thread or node already took this checkout.
+     */
+    public void process(UUID checkoutId) {
+        if (checkoutRepository.updateStatus(checkoutId, CheckoutState.PENDING, CheckoutState.PROCESSING, Instant.now()) == 0) {
+            return;
+        }
+        String transactionId = null;
+        try {
+            Checkout checkout = checkoutRepository.findWithUserById(checkoutId).orElseThrow();
+            PaymentResult result = paymentGateway.sale(checkout.getTotalAmount(), checkout.getNonce(), checkout.getUser());
+            if (!result.isSuccess()) {
+                checkoutRepository.finish(checkoutId, CheckoutState.FAILED, null, result.getMessage(), Instant.now());
+                return;
+            }
+            transactionId = result.getTransactionId();
+            checkoutService.completeCheckout(checkoutId, transactionId, checkout.toRequest(), checkout.getUser());
+        } catch (PaymentUnavailableException e) {
+            checkoutRepository.finish(checkoutId, CheckoutState.FAILED, null, e.getMessage(), Instant.now());
+        } catch (Exception e) {
+            log.error("Checkout {} failed (transaction {}): {}", checkoutId, transactionId, e.getMessage());
+            checkoutRepository.finish(checkoutId, CheckoutState.FAILED, transactionId, "Could not complete purchase", Instant.now());
+        } finally {
+            this.notifyWaiters(checkoutId);
+            this.announceFinished(checkoutId);
+        }
+    }
+
+    /**
+     * @param checkoutId received from Redis channel: finished on some node (including this one)
+     */
+    public void onFinished(@NotNull String checkoutId) {
+        try {
+            this.notifyWaiters(UUID.fromString(checkoutId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed checkout id {}", checkoutId);
+        }
+    }
+
+    /**
+     * Current state, or wait until checkout is finished
+     *
+     * @param checkout current state, owned by caller
+     * @param wait     max time to wait. Returns current state after that
+     * @return result set when finished or timed out
+     */
+    @NotNull
+    public DeferredResult<Checkout> watch(@NotNull Checkout checkout, @NotNull Duration wait) {
+        UUID id = checkout.getId();
+        DeferredResult<Checkout> result = new DeferredResult<>(wait.toMillis());
+        if (checkout.getStatus().isFinal() || wait.isZero()) {
+            result.setResult(checkout);
+            return result;
+        }
+        waiters.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(result);
+        result.onTimeout(() -> result.setResult(checkoutRepository.findById(id).orElse(checkout)));
+        result.onCompletion(() -> waiters.computeIfPresent(id, (k, set) -> {
+            set.remove(result);
+            return set.isEmpty() ? null : set;
+        }));
+        // may have finished before we registered
+        checkoutRepository.findById(id).filter(c -> c.getStatus().isFinal()).ifPresent(result::setResult);
+        return result;
+    }
+
+    /**
+     * Re-queue checkouts never picked up; fail those interrupted midway
+     */
+    @Scheduled(fixedDelayString = "${checkout.async.recover-interval:PT1M}", initialDelayString = "${checkout.async.recover-interval:PT1M}")
+    public void recoverStale() {
+        Instant now = Instant.now();
+        List<UUID> pending = checkoutRepository.findIdsByStatusUpdatedBefore(CheckoutState.PENDING,
+                now.minus(PENDING_TIMEOUT), PageRequest.ofSize(checkoutExecutor.getQueueCapacity()));
+        try {
+            for (UUID id : pending) checkoutExecutor.execute(() -> this.process(id));
+        } catch (TaskRejectedException e) {
+            log.warn("Checkout queue full, remaining stale checkouts wait for next run");
+        }
+        int interrupted = checkoutRepository.updateStaleStatus(CheckoutState.PROCESSING, now.minus(PROCESSING_TIMEOUT),
+                CheckoutState.FAILED, "Interrupted. If you were charged, please contact support", now);
+        if (interrupted > 0) log.error("{} checkouts were interrupted while processing", interrupted);
+    }
+
+    private void announceFinished(UUID checkoutId) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, checkoutId.toString());
+        } catch (Exception e) {
+            log.warn("Could not announce checkout {}: {}", checkoutId, e.getMessage());
+        }
+    }
+
+    private void notifyWaiters(UUID checkoutId) {
+        Set<DeferredResult<Checkout>> waiting = waiters.remove(checkoutId);
+        if (waiting == null || waiting.isEmpty()) return;
+        checkoutRepository.findById(checkoutId).ifPresent(c -> waiting.forEach(r -> r.setResult(c)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.davistiba.wedemyserver.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Small pool of client tokens, generated ahead of time in the background,
+ * so /checkout/token doesn't wait for the gateway. Each token is handed out once.
+ * Empty pool (or payment.client-token-pool.size 0): token is generated on the spot.
+ * Metrics: payment.client-token.pool{result=hit|miss}, payment.client-token.pool.size
+ */
+@Slf4j
+@Service
+public class ClientTokenPool {
+
+    private final ConcurrentLinkedQueue<PooledToken> tokens = new ConcurrentLinkedQueue<>();
+
+    /* at most one refill at a time */
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    @Autowired
+    private PaymentGateway paymentGateway;
+
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value(value = "${payment.client-token-pool.size:20}")
+    private int size;
+
+    /* Braintree client tokens are valid for 24h; hand out only fresh ones */
+    @Value(value = "${payment.client-token-pool.max-age:PT1H}")
+    private Duration maxAge;
+
+    private Counter hits;
+
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("payment.client-token.pool", "result", "hit");
+        misses = meterRegistry.counter("payment.client-token.pool", "result", "miss");
+        Gauge.builder("payment.client-token.pool.size", tokens, ConcurrentLinkedQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * @return a fresh token, from pool if possible
+     * @throws PaymentUnavailableException if pool is empty and gateway is unavailable
+     */
+    public String take() {
+        Instant oldest = Instant.now().minus(maxAge);
+        PooledToken pooled;
+        while ((pooled = tokens.poll()) != null) {
+            if (pooled.createdAt.isAfter(oldest)) {
+                hits.increment();
+                return pooled.token;
+            }
+        }
+        misses.increment();
+        return paymentGateway.generateClientToken();
+    }
+
+    /**
+     * Only triggers the refill. Gateway calls can take seconds each, so they must not
+     * hold up the (single) scheduler thread shared with flushes, outbox delivery etc.
+     */
+    @Scheduled(fixedDelayString = "${payment.client-token-pool.refill-interval:PT1S}")
+    public void scheduleRefill() {
+        if (!refilling.compareAndSet(false, true)) return; //previous one still running
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    this.refill();
+                } finally {
+                    refilling.set(false);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            refilling.set(false);
+        }
+    }
+
+    void refill() {
+        Instant oldest = Instant.now().minus(maxAge);
+        tokens.removeIf(t -> !t.createdAt.isAfter(oldest));
+        // size() is O(n), fine for a small pool. Only one refill runs at a time
+        for (int missing = size - tokens.size(); missing > 0; missing--) {
+            try {
+                tokens.add(new PooledToken(paymentGateway.generateClientToken(), Instant.now()));
+            } catch (RuntimeException e) {
+                log.debug("Could not pre-generate client token, will retry: {}", e.getMessage()); //gateway metrics show it
+                return;
+            }
+        }
+    }
+
+    private static final class PooledToken {
+        private final String token;
+        private final Instant createdAt;
+
+        PooledToken(String token, Instant createdAt) {
+            this.token = token;
+            this.createdAt = createdAt;
+        }
+    }
+}
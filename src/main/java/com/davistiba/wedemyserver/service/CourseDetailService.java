@@ -0,0 +1,81 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CourseDetailDTO;
+import com.davistiba.wedemyserver.dto.RatingSummary;
+import com.davistiba.wedemyserver.dto.ReviewDTO;
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseObjective;
+import com.davistiba.wedemyserver.models.Lesson;
+import com.davistiba.wedemyserver.repository.LessonRepository;
+import com.davistiba.wedemyserver.repository.ObjectiveRepository;
+import com.davistiba.wedemyserver.repository.ReviewRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@Service
+public class CourseDetailService {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ObjectiveRepository objectiveRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    @Qualifier("courseDetailExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    /**
+     * Fetch course, objectives, lessons and reviews all at once (in parallel).
+     * Rating summary comes with the course.
+     * Total time is about the slowest single query.
+     *
+     * @param courseId course
+     * @return empty if course does not exist
+     */
+    public Optional<CourseDetailDTO> getCourseDetail(Integer courseId)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Future<Optional<Course>> courseF = executor.submit(() -> courseService.getCourseById(courseId));
+        Future<List<CourseObjective>> objectivesF = executor.submit(() -> objectiveRepository.getCourseObjectivesByCourseId(courseId));
+        Future<Slice<Lesson>> lessonsF = executor.submit(() -> lessonRepository.getLessonsByCourseId(courseId, PageRequest.of(0, 10)));
+        Future<Slice<ReviewDTO>> reviewsF = executor.submit(() -> reviewRepository.findByCourseId(courseId,
+                PageRequest.of(0, 10, Sort.Direction.DESC, "createdAt")));
+
+        List<Future<?>> all = List.of(courseF, objectivesF, lessonsF, reviewsF);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        try {
+            for (Future<?> f : all) f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            // queued ones never start; running ones get interrupted (pool thread is freed once the query returns)
+            all.forEach(f -> f.cancel(true));
+            throw e;
+        }
+
+        Optional<Course> course = courseF.get(); //all done by now
+        if (course.isEmpty()) return Optional.empty();
+        List<CourseObjective> objectives = objectivesF.get();
+        Slice<Lesson> lessons = lessonsF.get();
+        Slice<ReviewDTO> reviews = reviewsF.get();
+        return Optional.of(new CourseDetailDTO(course.get(), objectives, lessons, reviews, RatingSummary.of(course.get())));
+    }
+}
@@ -0,0 +1,198 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseChangedEvent;
+import com.davistiba.wedemyserver.repository.CourseRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over course title, subtitle, author and category.
+ * Built once at startup, then patched whenever a course changes.
+ * Supports ranking, prefix matching and small typos.
+ */
+@Service
+public class CourseSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float SUBTITLE_WEIGHT = 1.0f;
+
+    private static final float PREFIX_FACTOR = 0.6f;
+    private static final float FUZZY_FACTOR = 0.4f;
+
+    /* term -> (courseId -> weight). Sorted, for prefix lookups */
+    private final ConcurrentSkipListMap<String, Map<Integer, Float>> postings = new ConcurrentSkipListMap<>();
+
+    /* courseId -> terms, to remove old postings on update */
+    private final Map<Integer, Set<String>> docTerms = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        courseRepository.findAll().forEach(this::index);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(@NotNull CourseChangedEvent event) {
+        Integer courseId = event.getCourseId();
+        courseRepository.findById(courseId).ifPresentOrElse(this::index, () -> this.remove(courseId));
+    }
+
+    /**
+     * Add or replace a course in the index
+     *
+     * @param course course
+     */
+    public synchronized void index(@NotNull Course course) {
+        this.remove(course.getId());
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, course.getTitle(), TITLE_WEIGHT);
+        addField(weights, course.getSubtitle(), SUBTITLE_WEIGHT);
+        addField(weights, course.getAuthor(), AUTHOR_WEIGHT);
+        addField(weights, course.getCategory(), CATEGORY_WEIGHT);
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(course.getId(), weight));
+        docTerms.put(course.getId(), weights.keySet());
+    }
+
+    public synchronized void remove(Integer courseId) {
+        Set<String> terms = docTerms.remove(courseId);
+        if (terms == null) return;
+        for (String term : terms) {
+            postings.computeIfPresent(term, (t, docs) -> {
+                docs.remove(courseId);
+                return docs.isEmpty() ? null : docs;
+            });
+        }
+    }
+
+    /**
+     * Find courses matching ALL words in query, best first.
+     *
+     * @param query raw user input
+     * @return ranked courseIds
+     */
+    public List<Integer> search(String query) {
+        List<String> queryTerms = tokenize(query);
+        if (queryTerms.isEmpty()) return Collections.emptyList();
+
+        Map<Integer, Float> scores = null;
+        for (String queryTerm : new LinkedHashSet<>(queryTerms)) {
+            Map<Integer, Float> termScores = scoreTerm(queryTerm);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) return Collections.emptyList();
+        }
+
+        return scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Best score per course for one query word: exact, else prefix, else typo match.
+     */
+    private Map<Integer, Float> scoreTerm(@NotNull String queryTerm) {
+        Map<Integer, Float> result = new HashMap<>();
+        int maxEdits = maxEditsFor(queryTerm);
+        String firstChar = queryTerm.substring(0, 1);
+
+        // every candidate term starts with the same letter (typos on first letter are rare)
+        for (var entry : postings.subMap(firstChar, firstChar + Character.MAX_VALUE).entrySet()) {
+            String term = entry.getKey();
+            float factor;
+            if (term.equals(queryTerm)) {
+                factor = 1.0f;
+            } else if (term.startsWith(queryTerm)) {
+                factor = PREFIX_FACTOR * queryTerm.length() / term.length();
+            } else if (maxEdits > 0 && Math.abs(term.length() - queryTerm.length()) <= maxEdits) {
+                int edits = editDistance(queryTerm, term, maxEdits);
+                if (edits > maxEdits) continue;
+                factor = FUZZY_FACTOR / edits;
+            } else {
+                continue;
+            }
+            entry.getValue().forEach((courseId, weight) -> result.merge(courseId, weight * factor, Math::max));
+        }
+        return result;
+    }
+
+    private static int maxEditsFor(@NotNull String term) {
+        if (term.length() < 4) return 0;
+        return term.length() < 8 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance, where swapping two neighbouring letters counts as one edit.
+     * Gives up early once it exceeds {@code limit}
+     *
+     * @return distance, or (limit + 1) if too far
+     */
+    static int editDistance(@NotNull String a, @NotNull String b, int limit) {
+        int[] prevPrev = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        int prevRowMin = 0;
+
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    curr[j] = Math.min(curr[j], prevPrev[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            // a swap looks back two rows, so both must be out of range
+            if (rowMin > limit && prevRowMin > limit) return limit + 1;
+            prevRowMin = rowMin;
+            int[] tmp = prevPrev;
+            prevPrev = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return Math.min(prev[b.length()], limit + 1);
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String term : tokenize(text)) {
+            weights.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Lowercase, strip accents, split on anything not a letter or digit
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return Collections.emptyList();
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{Nd}]+"))
+                .filter(t -> !t.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
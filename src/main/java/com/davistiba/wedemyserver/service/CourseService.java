@@ -0,0 +1,70 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CategoryDTO;
+import com.davistiba.wedemyserver.dto.CourseOutline;
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseChangedEvent;
+import com.davistiba.wedemyserver.repository.CourseRepository;
+import com.davistiba.wedemyserver.repository.LessonRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-mostly course catalog, served from cache (local + Redis).
+ * Returned entities are SHARED between requests, so never modify them!
+ */
+@Service
+public class CourseService {
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Cacheable(value = "courses", key = "#id", unless = "#result == null")
+    public Optional<Course> getCourseById(Integer id) {
+        return courseRepository.findById(id);
+    }
+
+    @Cacheable(value = "featured-courses")
+    public List<Course> getTopCourses() {
+        return courseRepository.getTop6CoursesByIsFeatured(true);
+    }
+
+    @Cacheable(value = "course-categories")
+    public List<CategoryDTO> getAllCategories() {
+        return courseRepository.getAllDistinctCategories();
+    }
+
+    @Cacheable(value = "course-outlines", key = "#courseId")
+    public CourseOutline getOutline(Integer courseId) {
+        return CourseOutline.of(lessonRepository.getAllByCourseId(courseId));
+    }
+
+    /**
+     * Call whenever a course is modified. Evicts after commit, on every node.
+     * Also notifies listeners, such as the search index, here and on other nodes (see CourseChangeRelay)
+     *
+     * @param id courseId
+     */
+    @Caching(evict = {
+            @CacheEvict(value = "courses", key = "#id"),
+            @CacheEvict(value = "featured-courses", allEntries = true),
+            @CacheEvict(value = "course-categories", allEntries = true),
+            @CacheEvict(value = "course-outlines", key = "#id")
+    })
+    public void evictCourse(Integer id) {
+        eventPublisher.publishEvent(new CourseChangedEvent(this, id));
+    }
+}
@@ -0,0 +1,36 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CourseStatus;
+import com.davistiba.wedemyserver.models.MembershipType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class CourseStatusService {
+
+    @Autowired
+    private MembershipService membershipService;
+
+    /**
+     * Get cart, wishlist and owned flags for many courses at once.
+     * Served from user's membership sets in Redis, one lookup per set.
+     *
+     * @param userId    current user, may be NULL (not logged in)
+     * @param courseIds courses on screen
+     * @return status for each courseId, same order as given
+     */
+    public Map<Integer, CourseStatus> getStatuses(Integer userId, Collection<Integer> courseIds) {
+        Set<Integer> distinctIds = new LinkedHashSet<>(courseIds);
+        Set<Integer> inCart = membershipService.filter(MembershipType.CART, userId, distinctIds);
+        Set<Integer> inWishlist = membershipService.filter(MembershipType.WISHLIST, userId, distinctIds);
+        Set<Integer> owned = membershipService.filter(MembershipType.OWNED, userId, distinctIds);
+
+        Map<Integer, CourseStatus> response = new LinkedHashMap<>(distinctIds.size());
+        for (Integer id : distinctIds) {
+            response.put(id, new CourseStatus(inCart.contains(id), inWishlist.contains(id), owned.contains(id)));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,177 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CourseCountDTO;
+import com.davistiba.wedemyserver.dto.CourseSuggestion;
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseChangedEvent;
+import com.davistiba.wedemyserver.repository.CourseRepository;
+import com.davistiba.wedemyserver.repository.EnrollmentRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Typeahead for course titles. Served from an immutable trie, where every node already
+ * holds its best N courses. So a lookup is just a walk down the prefix.
+ * Titles matching from the start come first, then by popularity (enrollments).
+ */
+@Service
+public class CourseSuggester {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    /* longer prefixes than this are not worth indexing */
+    private static final int MAX_KEY_LENGTH = 40;
+
+    private volatile Snapshot snapshot = new Snapshot(new Node(new char[0], new Node[0], new int[0]), Map.of());
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    /**
+     * Full rebuild at startup, then periodically to refresh popularity.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${suggest.refresh-interval:PT10M}", initialDelayString = "${suggest.refresh-interval:PT10M}")
+    public void rebuild() {
+        Map<Integer, String> titles = new HashMap<>();
+        courseRepository.findAll().forEach(c -> titles.put(c.getId(), c.getTitle()));
+        Map<Integer, Long> popularity = enrollmentRepository.countAllGroupByCourse().stream()
+                .collect(Collectors.toMap(CourseCountDTO::getCourseId, CourseCountDTO::getTotal));
+        this.snapshot = build(titles, popularity);
+    }
+
+    /**
+     * Rebuild only if title actually changed (rating updates don't matter here)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCourseChanged(@NotNull CourseChangedEvent event) {
+        String knownTitle = snapshot.titles.get(event.getCourseId());
+        String newTitle = courseRepository.findById(event.getCourseId()).map(Course::getTitle).orElse(null);
+        if (!Objects.equals(knownTitle, newTitle)) {
+            this.rebuild();
+        }
+    }
+
+    /**
+     * Get best titles starting with prefix (or having a word starting with it)
+     *
+     * @param prefix as typed
+     * @param limit  max results
+     * @return suggestions, best first
+     */
+    public List<CourseSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) return Collections.emptyList();
+
+        Snapshot current = this.snapshot;
+        Node node = current.root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) return Collections.emptyList();
+
+        int size = Math.min(Math.min(limit, MAX_SUGGESTIONS), node.top.length);
+        List<CourseSuggestion> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int courseId = node.top[i];
+            result.add(new CourseSuggestion(courseId, current.titles.get(courseId)));
+        }
+        return result;
+    }
+
+    @NotNull
+    static Snapshot build(@NotNull Map<Integer, String> titles, Map<Integer, Long> popularity) {
+        List<Integer> byPopularity = titles.keySet().stream()
+                .sorted(Comparator.<Integer>comparingLong(id -> popularity.getOrDefault(id, 0L)).reversed()
+                        .thenComparing(titles::get)
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+
+        BuilderNode root = new BuilderNode();
+        // pass 1: from start of title. pass 2: from every other word. Each in popularity order
+        for (Integer id : byPopularity) {
+            root.insert(normalize(titles.get(id)), id);
+        }
+        for (Integer id : byPopularity) {
+            List<String> words = CourseSearchIndex.tokenize(titles.get(id));
+            for (int w = 1; w < words.size(); w++) {
+                root.insert(String.join(" ", words.subList(w, words.size())), id);
+            }
+        }
+        return new Snapshot(root.freeze(), Map.copyOf(titles));
+    }
+
+    @NotNull
+    private static String normalize(String text) {
+        return String.join(" ", CourseSearchIndex.tokenize(text));
+    }
+
+    static final class Snapshot {
+        private final Node root;
+        private final Map<Integer, String> titles;
+
+        Snapshot(Node root, Map<Integer, String> titles) {
+            this.root = root;
+            this.titles = titles;
+        }
+    }
+
+    /**
+     * Frozen node: sorted labels for binary search, plus ranked courseIds
+     */
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] top;
+
+        Node(char[] labels, Node[] children, int[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char c) {
+            int idx = Arrays.binarySearch(labels, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+    }
+
+    private static final class BuilderNode {
+        private final TreeMap<Character, BuilderNode> children = new TreeMap<>();
+        private final LinkedHashSet<Integer> top = new LinkedHashSet<>();
+
+        void insert(@NotNull String key, Integer courseId) {
+            BuilderNode node = this;
+            int length = Math.min(key.length(), MAX_KEY_LENGTH);
+            for (int i = 0; i < length; i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new BuilderNode());
+                if (node.top.size() < MAX_SUGGESTIONS) {
+                    node.top.add(courseId);
+                }
+            }
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (var entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(labels, frozen, top.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
@@ -1,72 +1,118 @@
 package com.davistiba.wedemyserver.service;
 
+import com.davistiba.wedemyserver.dto.CourseOutline;
+import com.davistiba.wedemyserver.dto.LessonDTO;
 import com.davistiba.wedemyserver.dto.WatchStatus;
-import com.davistiba.wedemyserver.models.EnrollProgress;
 import com.davistiba.wedemyserver.models.Enrollment;
-import com.davistiba.wedemyserver.models.Lesson;
+import com.davistiba.wedemyserver.models.EnrollmentChangedEvent;
 import com.davistiba.wedemyserver.repository.EnrollProgressRepository;
 import com.davistiba.wedemyserver.repository.EnrollmentRepository;
-import com.davistiba.wedemyserver.repository.LessonRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Optional;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.*;
 
+/**
+ * Watched lessons are kept as a bitset on each Enrollment (bit N = lesson at position N).
+ * Combined with the cached course outline, progress needs no joins or counts.
+ */
 @Service
 public class EnrollProgressService {
 
+    /* compare-and-set attempts, when same enrollment is updated concurrently */
+    private static final int MAX_ATTEMPTS = 3;
+
     @Autowired
     private EnrollProgressRepository progressRepository;
 
     @Autowired
-    private LessonRepository lessonRepository;
+    private EnrollmentRepository enrollmentRepository;
 
     @Autowired
-    private EnrollmentRepository enrollmentRepository;
+    private CourseService courseService;
+
+    @Autowired
+    private WatchedLessonsBuffer watchedLessonsBuffer;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
 
     /**
-     * Update tables, then return next lesson
+     * Update tables, then return next lesson.
+     * A new watch is a single UPDATE. Re-watching a lesson writes nothing.
      *
      * @param status     watchStatus
      * @param enrollment current
-     * @return next Lesson
+     * @return next lessonId
      */
     @Transactional
-    public Optional<Lesson> updateAndGetNextLesson(@NotNull WatchStatus status, Enrollment enrollment) {
+    public Optional<UUID> updateAndGetNextLesson(@NotNull WatchStatus status, @NotNull Enrollment enrollment) {
         UUID lessonId = UUID.fromString(status.getCurrentLessonId());
-        Lesson currentLesson = lessonRepository.findById(lessonId).orElseThrow();
-        Optional<EnrollProgress> enrollProgress = progressRepository.findByEnrollIdAndLessonId(status.getEnrollId(), lessonId);
-
-        if (enrollProgress.isEmpty()) {
-            //means User has NOT ALREADY watched this
-            progressRepository.save(new EnrollProgress(enrollment, currentLesson));
-
-            long numWatched = progressRepository.countByEnrollmentId(enrollment.getId());
-            long totalLessons = lessonRepository.countByCourseId(status.getCourseId());
-            double percentVal = (double) numWatched / (double) totalLessons * 100.00;
-            boolean isCompleted = (percentVal / 100.00) == 1;
-
-            //update `Enrollments` table
-            BigDecimal progressPercent = BigDecimal.valueOf(percentVal).setScale(2, RoundingMode.HALF_UP);
-            enrollment.setProgress(progressPercent);
-            enrollment.setIsCompleted(isCompleted);
-            if (!isCompleted) {
-                enrollment.setNextPosition(currentLesson.getPosition() + 1);
-            } else {
-                enrollment.setNextPosition(1); //All done? reset to 1
+        CourseOutline outline = courseService.getOutline(status.getCourseId());
+        int index = outline.indexOf(lessonId);
+        if (index < 0) throw new NoSuchElementException("Lesson not found in this course");
+
+        byte[] current = this.getWatchedLessons(enrollment);
+        for (int attempt = 1; ; attempt++) {
+            BitSet watched = BitSet.valueOf(current);
+            if (outline.isWatched(watched, index)) {
+                return nextLesson(outline, watched); //already watched, nothing to update
+            }
+            watched.set(outline.positionAt(index));
+
+            boolean isCompleted = outline.isCompletedBy(watched);
+            BigDecimal progress = outline.progressOf(watched);
+            int nextPosition = isCompleted ? 1 : outline.positionAt(index) + 1; //All done? reset to 1
+
+            int updated = enrollmentRepository.updateWatchedLessons(enrollment.getId(), current, watched.toByteArray(),
+                    watched.cardinality(), progress, isCompleted, nextPosition, Instant.now());
+            if (updated > 0) {
+                if (isCompleted && !outline.isCompletedBy(BitSet.valueOf(current))) {
+                    eventPublisher.publishEvent(new EnrollmentChangedEvent(this, enrollment.getUser().getId()));
+                }
+                return nextLesson(outline, watched);
             }
-            enrollmentRepository.save(enrollment);
-            return this.getNextLesson(enrollment);
+            if (attempt == MAX_ATTEMPTS) {
+                throw new ConcurrentModificationException("Progress is being updated elsewhere. Try again");
+            }
+            // lost the race: re-read what won (a plain SELECT would see our own snapshot again)
+            current = enrollmentRepository.lockWatchedLessons(enrollment.getId()).orElseThrow();
         }
+    }
+
+
+    /**
+     * Same as {@link #updateAndGetNextLesson}, but only buffers the update (write-behind mode).
+     * Returns next lesson straight away, from cached outline. No transaction, no writes.
+     *
+     * @param status     watchStatus
+     * @param enrollment current
+     * @return next lessonId
+     */
+    public Optional<UUID> recordWatched(@NotNull WatchStatus status, @NotNull Enrollment enrollment) {
+        UUID lessonId = UUID.fromString(status.getCurrentLessonId());
+        CourseOutline outline = courseService.getOutline(status.getCourseId());
+        int index = outline.indexOf(lessonId);
+        if (index < 0) throw new NoSuchElementException("Lesson not found in this course");
 
-        //OTHERWISE, simply RETURN NEXT.
-        return this.getNextLesson(enrollment);
+        BitSet watched = new BitSet();
+        if (enrollment.getWatchedLessons() != null) {
+            watched.or(BitSet.valueOf(enrollment.getWatchedLessons()));
+        } else {
+            progressRepository.findWatchedPositions(enrollment.getId()).forEach(watched::set); //not migrated yet
+        }
+        watched.or(watchedLessonsBuffer.getUnflushed(enrollment.getId()));
+        if (!outline.isWatched(watched, index)) {
+            watchedLessonsBuffer.add(enrollment.getId(), status.getCourseId(), outline.positionAt(index));
+            watched.set(outline.positionAt(index));
+        }
+        return nextLesson(outline, watched);
     }
 
 
@@ -76,11 +122,64 @@ public class EnrollProgressService {
      * @param enrollment current
      * @return next lessonId
      */
-    public Optional<Lesson> getNextLesson(@NotNull Enrollment enrollment) {
-        Integer nextPosition = enrollment.getNextPosition();
-        Integer courseId = enrollment.getCourse().getId();
-        Optional<Lesson> next = lessonRepository.getFirstNotWatchedInEnrollment(enrollment.getId(), courseId);
-        return next.or(() -> lessonRepository.findByCourseIdAndPosition(courseId, nextPosition));
+    @Transactional
+    public Optional<UUID> getNextLesson(@NotNull Enrollment enrollment) {
+        CourseOutline outline = courseService.getOutline(enrollment.getCourse().getId());
+        return nextLesson(outline, this.getWatched(enrollment));
+    }
+
+    /**
+     * All lessons of course, each with watch status for this enrollment.
+     * Merged in memory from cached outline
+     *
+     * @param enrollId enrollment, must be for courseId
+     * @param courseId course
+     * @return lessons by position
+     */
+    @Transactional
+    public List<LessonDTO> getWatchStatusList(Long enrollId, Integer courseId) {
+        BitSet watched = enrollmentRepository.findById(enrollId)
+                .filter(e -> Objects.equals(e.getCourse().getId(), courseId))
+                .map(this::getWatched)
+                .orElseGet(BitSet::new);
+        return courseService.getOutline(courseId).withWatchStatus(watched);
+    }
+
+    /**
+     * Convert one enrollment's `enroll_progress` rows into its bitset. No-op if already converted
+     *
+     * @param enrollmentId to migrate
+     * @return current bitset
+     */
+    @Transactional
+    public byte[] migrateWatchedLessons(Long enrollmentId) {
+        BitSet watched = new BitSet();
+        progressRepository.findWatchedPositions(enrollmentId).forEach(watched::set);
+        byte[] bits = watched.toByteArray();
+        if (enrollmentRepository.initWatchedLessons(enrollmentId, bits, watched.cardinality()) == 0) {
+            return enrollmentRepository.lockWatchedLessons(enrollmentId).orElse(bits); //someone else did it
+        }
+        return bits;
+    }
+
+    /* saved + still buffered */
+    @NotNull
+    private BitSet getWatched(@NotNull Enrollment enrollment) {
+        BitSet watched = BitSet.valueOf(this.getWatchedLessons(enrollment));
+        watched.or(watchedLessonsBuffer.getUnflushed(enrollment.getId()));
+        return watched;
+    }
+
+    private byte[] getWatchedLessons(@NotNull Enrollment enrollment) {
+        byte[] bits = enrollment.getWatchedLessons();
+        return bits != null ? bits : this.migrateWatchedLessons(enrollment.getId());
+    }
+
+    private static Optional<UUID> nextLesson(@NotNull CourseOutline outline, BitSet watched) {
+        if (outline.size() == 0) return Optional.empty();
+        int index = outline.firstNotWatched(watched);
+        // all watched? course is completed, so start again from the first lesson
+        return Optional.of(outline.lessonIdAt(Math.max(index, 0)));
     }
 
 }
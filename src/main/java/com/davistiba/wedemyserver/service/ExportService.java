@@ -0,0 +1,93 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.ExportFormat;
+import com.davistiba.wedemyserver.dto.ExportRow;
+import com.davistiba.wedemyserver.dto.EnrollmentExportRow;
+import com.davistiba.wedemyserver.dto.SalesExportRow;
+import com.davistiba.wedemyserver.repository.EnrollmentRepository;
+import com.davistiba.wedemyserver.repository.SalesRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes sales and enrollments to an output stream, one row at a time.
+ * Rows come from a forward-only cursor, so memory stays the same for any range.
+ */
+@Service
+public class ExportService {
+
+    @Autowired
+    private SalesRepository salesRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeSales(Instant from, Instant to, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<SalesExportRow> rows = salesRepository.streamForExport(from, to)) {
+            return this.write(rows, SalesExportRow.HEADER, format, out);
+        }
+    }
+
+    /**
+     * @param from inclusive
+     * @param to   exclusive
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeEnrollments(Instant from, Instant to, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<EnrollmentExportRow> rows = enrollmentRepository.streamForExport(from, to)) {
+            return this.write(rows, EnrollmentExportRow.HEADER, format, out);
+        }
+    }
+
+    private long write(@NotNull Stream<? extends ExportRow> rows, String[] header, ExportFormat format,
+                       OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) writer.write(csvLine(header));
+
+        long count = 0;
+        Iterator<? extends ExportRow> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            ExportRow row = iterator.next();
+            writer.write(format == ExportFormat.CSV ? csvLine(row.csvValues()) : objectMapper.writeValueAsString(row) + "\n");
+            count++;
+        }
+        writer.flush(); //caller closes the stream
+        return count;
+    }
+
+    /* RFC 4180: quote values containing comma, quote or line break */
+    @NotNull
+    static String csvLine(@NotNull Object[] values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            if (values[i] == null) continue;
+            String value = values[i].toString();
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.append("\r\n").toString();
+    }
+}
@@ -0,0 +1,170 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.MembershipType;
+import com.davistiba.wedemyserver.repository.CartRepository;
+import com.davistiba.wedemyserver.repository.EnrollmentRepository;
+import com.davistiba.wedemyserver.repository.WishlistRepository;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Per-user sets of courseIds (in cart, in wishlist, owned), kept in Redis.
+ * Redis stores small all-integer sets as a sorted int array (intset), so these stay compact.
+ * Status checks read Redis only. DB is read once per user, when set is missing or expired.
+ * Every add/remove bumps a version per set. A fill from DB is dropped if the version
+ * changed meanwhile, so it can't bring back a course removed during the DB read.
+ */
+@Service
+public class MembershipService {
+
+    /* marks a set as loaded from DB, even if user has no courses in it */
+    private static final String LOADED = "-1";
+
+    /* KEYS: set, version. ARGV: version seen before DB read, ttl millis, members... */
+    private static final RedisScript<Long> FILL_IF_UNCHANGED = new DefaultRedisScript<>(
+            "if (redis.call('GET', KEYS[2]) or '') ~= ARGV[1] then return 0 end " +
+                    "redis.call('DEL', KEYS[1]) " +
+                    "redis.call('SADD', KEYS[1], unpack(ARGV, 3)) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+                    "return 1", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private WishlistRepository wishlistRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Value(value = "${membership.time-to-live:PT6H}")
+    private Duration timeToLive;
+
+    public boolean contains(MembershipType type, Integer userId, @NotNull Integer courseId) {
+        if (userId == null) return false;
+        return this.filter(type, userId, Collections.singleton(courseId)).contains(courseId);
+    }
+
+    /**
+     * Which of the given courses are in user's set. Single round trip (SMISMEMBER)
+     *
+     * @param type      which set
+     * @param userId    current user, may be NULL
+     * @param courseIds to check
+     * @return subset of courseIds that are members
+     */
+    public Set<Integer> filter(MembershipType type, Integer userId, @NotNull Collection<Integer> courseIds) {
+        if (userId == null || courseIds.isEmpty()) return Collections.emptySet();
+        String key = keyOf(type, userId);
+        Object[] members = new Object[courseIds.size() + 1];
+        members[0] = LOADED;
+        int i = 1;
+        for (Integer id : courseIds) members[i++] = String.valueOf(id);
+
+        Map<Object, Boolean> result = redisTemplate.opsForSet().isMember(key, members);
+        if (result == null || !Boolean.TRUE.equals(result.get(LOADED))) {
+            Set<Integer> all = this.load(type, userId);
+            Set<Integer> found = new HashSet<>(courseIds);
+            found.retainAll(all);
+            return found;
+        }
+        Set<Integer> found = new HashSet<>();
+        for (Integer id : courseIds) {
+            if (Boolean.TRUE.equals(result.get(String.valueOf(id)))) found.add(id);
+        }
+        return found;
+    }
+
+    /**
+     * Add to user's set. If called inside a transaction, runs only after commit.
+     */
+    public void add(MembershipType type, Integer userId, @NotNull Collection<Integer> courseIds) {
+        if (userId == null || courseIds.isEmpty()) return;
+        String[] members = courseIds.stream().map(String::valueOf).toArray(String[]::new);
+        afterCommit(() -> {
+            String key = keyOf(type, userId);
+            redisTemplate.opsForSet().add(key, members);
+            redisTemplate.expire(key, timeToLive);
+            this.bumpVersion(type, userId);
+        });
+    }
+
+    /**
+     * Remove from user's set. If called inside a transaction, runs only after commit.
+     */
+    public void remove(MembershipType type, Integer userId, @NotNull Collection<Integer> courseIds) {
+        if (userId == null || courseIds.isEmpty()) return;
+        Object[] members = courseIds.stream().map(String::valueOf).toArray();
+        afterCommit(() -> {
+            redisTemplate.opsForSet().remove(keyOf(type, userId), members);
+            this.bumpVersion(type, userId);
+        });
+    }
+
+    private Set<Integer> load(@NotNull MembershipType type, Integer userId) {
+        String versionKey = versionKeyOf(type, userId);
+        String version = Objects.requireNonNullElse(redisTemplate.opsForValue().get(versionKey), "");
+        List<Integer> courseIds;
+        switch (type) {
+            case CART:
+                courseIds = cartRepository.findCourseIdsByUserId(userId);
+                break;
+            case WISHLIST:
+                courseIds = wishlistRepository.findCourseIdsByUserId(userId);
+                break;
+            default:
+                courseIds = enrollmentRepository.findCourseIdsByUserId(userId);
+        }
+        String[] args = new String[courseIds.size() + 3];
+        args[0] = version;
+        args[1] = String.valueOf(timeToLive.toMillis());
+        args[2] = LOADED;
+        for (int i = 0; i < courseIds.size(); i++) args[i + 3] = String.valueOf(courseIds.get(i));
+
+        // replaced as a whole, unless changed meanwhile. Then it stays unloaded: next read loads again
+        redisTemplate.execute(FILL_IF_UNCHANGED, List.of(keyOf(type, userId), versionKey), (Object[]) args);
+        return new HashSet<>(courseIds);
+    }
+
+    private void bumpVersion(@NotNull MembershipType type, Integer userId) {
+        String versionKey = versionKeyOf(type, userId);
+        redisTemplate.opsForValue().increment(versionKey);
+        redisTemplate.expire(versionKey, timeToLive);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @NotNull
+    private static String keyOf(@NotNull MembershipType type, Integer userId) {
+        return "membership:" + type.name().toLowerCase() + ":" + userId;
+    }
+
+    @NotNull
+    private static String versionKeyOf(@NotNull MembershipType type, Integer userId) {
+        return "membership-version:" + type.name().toLowerCase() + ":" + userId;
+    }
+}
@@ -0,0 +1,145 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CheckoutCompleted;
+import com.davistiba.wedemyserver.models.EnrollmentChangedEvent;
+import com.davistiba.wedemyserver.models.MembershipType;
+import com.davistiba.wedemyserver.models.OutboxMessage;
+import com.davistiba.wedemyserver.models.OutboxType;
+import com.davistiba.wedemyserver.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Transactional outbox. Side effects are saved as rows in the same transaction as the change,
+ * so they happen if (and only if) it commits, even if this node dies right after.
+ * Delivered right after commit, and re-tried by a poller on every node.
+ * Each delivery first claims the row (lease), so nodes don't deliver the same message at once.
+ * After outbox.max-attempts failures a message is kept as dead (`dead_at`), not retried.
+ * Delivery is at-least-once: handlers must be idempotent.
+ */
+@Slf4j
+@Service
+public class OutboxService {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MembershipService membershipService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    @Value(value = "${outbox.poll-interval:PT5S}")
+    private Duration pollInterval;
+
+    @Value(value = "${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    /* a node that claimed a message and died releases it after this */
+    @Value(value = "${outbox.lease:PT1M}")
+    private Duration lease;
+
+    /**
+     * Save a message in current transaction. Delivered after commit
+     *
+     * @param type    kind of message
+     * @param payload serialized as JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void add(OutboxType type, Object payload) {
+        Long id = outboxRepository.save(new OutboxMessage(type, this.toJson(payload))).getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // off this thread: synchronizations registered during afterCommit would never run
+                taskExecutor.execute(() -> outboxRepository.findById(id).ifPresent(OutboxService.this::deliver));
+            }
+        });
+    }
+
+    /**
+     * Deliver anything left over: failed earlier, or saved by a node that stopped before delivering
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:PT5S}")
+    public void deliverPending() {
+        Instant before = Instant.now().minus(pollInterval); //leave fresh ones to the after-commit path
+        long afterId = 0L;
+        List<OutboxMessage> batch;
+        do {
+            batch = outboxRepository.findDeliverable(afterId, before, Instant.now(), PageRequest.ofSize(BATCH_SIZE));
+            batch.forEach(this::deliver);
+            if (!batch.isEmpty()) afterId = batch.get(batch.size() - 1).getId();
+        } while (batch.size() == BATCH_SIZE);
+    }
+
+    private void deliver(@NotNull OutboxMessage message) {
+        Instant now = Instant.now();
+        if (outboxRepository.claim(message.getId(), now.plus(lease), now) == 0) {
+            return; //delivered, dead, or being delivered by another node
+        }
+        try {
+            this.handle(message);
+            outboxRepository.deleteDelivered(message.getId());
+        } catch (Exception e) {
+            int attempt = message.getAttempts() + 1;
+            if (attempt >= maxAttempts) {
+                log.error("Outbox message {} ({}) failed {} times, giving up: {}", message.getId(), message.getType(),
+                        attempt, e.getMessage());
+                outboxRepository.markDead(message.getId(), Instant.now());
+            } else {
+                log.warn("Outbox message {} ({}) failed, attempt {}: {}", message.getId(), message.getType(),
+                        attempt, e.getMessage());
+                outboxRepository.addFailedAttempt(message.getId());
+            }
+        }
+    }
+
+    private void handle(@NotNull OutboxMessage message) throws JsonProcessingException {
+        switch (message.getType()) {
+            case CHECKOUT_COMPLETED:
+                CheckoutCompleted checkout = objectMapper.readValue(message.getPayload(), CheckoutCompleted.class);
+                // refresh user's course sets
+                membershipService.add(MembershipType.OWNED, checkout.getUserId(), checkout.getCourseIds());
+                membershipService.remove(MembershipType.CART, checkout.getUserId(), checkout.getCourseIds());
+                membershipService.remove(MembershipType.WISHLIST, checkout.getUserId(), checkout.getCourseIds());
+                eventPublisher.publishEvent(new EnrollmentChangedEvent(this, checkout.getUserId()));
+                break;
+            default:
+                throw new IllegalStateException("No handler for " + message.getType());
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox payload", e);
+        }
+    }
+}
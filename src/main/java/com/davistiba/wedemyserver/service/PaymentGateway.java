@@ -0,0 +1,27 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.User;
+
+import java.math.BigDecimal;
+
+/**
+ * Where payments go. Chosen by `payment.gateway` (braintree | simulated)
+ */
+public interface PaymentGateway {
+
+    /**
+     * @return token for the frontend drop-in UI
+     */
+    String generateClientToken();
+
+    /**
+     * Charge and submit for settlement. Blocking network call
+     *
+     * @param amount total to charge
+     * @param nonce  payment method nonce from frontend
+     * @param user   buyer
+     * @return result, with gateway transactionId if charged
+     */
+    PaymentResult sale(BigDecimal amount, String nonce, User user);
+}
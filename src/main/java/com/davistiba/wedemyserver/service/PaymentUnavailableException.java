@@ -0,0 +1,28 @@
+package com.davistiba.wedemyserver.service;
+
+/**
+ * Payment gateway was not called (circuit open, too many calls) or did not answer in time.
+ * In the timeout case a sale may still have gone through, see {@link #isGatewayCalled()}.
+ */
+public class PaymentUnavailableException extends RuntimeException {
+
+    /* request reached (or may have reached) the gateway: outcome unknown */
+    private final boolean gatewayCalled;
+
+    public PaymentUnavailableException(String message) {
+        this(message, null, false);
+    }
+
+    public PaymentUnavailableException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    public PaymentUnavailableException(String message, Throwable cause, boolean gatewayCalled) {
+        super(message, cause);
+        this.gatewayCalled = gatewayCalled;
+    }
+
+    public boolean isGatewayCalled() {
+        return gatewayCalled;
+    }
+}
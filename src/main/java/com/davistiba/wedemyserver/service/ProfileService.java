@@ -1,10 +1,15 @@
 package com.davistiba.wedemyserver.service;
 
+import com.davistiba.wedemyserver.dto.EnrollmentCounts;
 import com.davistiba.wedemyserver.dto.StudentSummary;
+import com.davistiba.wedemyserver.models.EnrollmentChangedEvent;
 import com.davistiba.wedemyserver.models.SummaryTitle;
 import com.davistiba.wedemyserver.models.User;
 import com.davistiba.wedemyserver.repository.EnrollmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 import javax.validation.constraints.NotNull;
@@ -20,16 +25,17 @@ public class ProfileService {
     private EnrollmentRepository enrollmentRepository;
 
     /**
-     * Custom service to return a Student's summary
+     * Custom service to return a Student's summary.
+     * Cached per user (shared by all sessions and nodes), until enrollments change
      */
+    @Cacheable(value = "student-summary", key = "#user.id")
     public List<StudentSummary> getUserSummaryList(@NotNull User user) {
         List<StudentSummary> summaryList = new ArrayList<>(3);
-        long owned = enrollmentRepository.countEnrollmentByUser(user);
-        StudentSummary s1 = new StudentSummary(SummaryTitle.OWNING, owned, "courses");
+        EnrollmentCounts counts = enrollmentRepository.getCountsByUserId(user.getId());
+        StudentSummary s1 = new StudentSummary(SummaryTitle.OWNING, counts.getOwned(), "courses");
         summaryList.add(s1);
 
-        long completed = enrollmentRepository.countEnrollmentByUserAndIsCompleted(user, true);
-        StudentSummary s2 = new StudentSummary(SummaryTitle.COMPLETED, completed, "courses");
+        StudentSummary s2 = new StudentSummary(SummaryTitle.COMPLETED, counts.getCompleted(), "courses");
         summaryList.add(s2);
 
         Duration duration = Duration.between(Instant.now(), user.getCreatedAt()).abs();
@@ -38,6 +44,15 @@ public class ProfileService {
         return summaryList;
     }
 
+    /**
+     * Evict summary. Cache is transaction-aware, so this happens only after commit.
+     * Cache is in Redis, so every node sees it
+     */
+    @EventListener
+    @CacheEvict(value = "student-summary", key = "#event.userId")
+    public void onEnrollmentChanged(EnrollmentChangedEvent event) {
+    }
+
     private StudentSummary getMembershipTime(Duration duration) {
         final long numberDays = duration.toDays();
 
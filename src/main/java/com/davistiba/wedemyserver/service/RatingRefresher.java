@@ -0,0 +1,151 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.ReviewChangedEvent;
+import com.davistiba.wedemyserver.repository.CourseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Updates course rating and star counts in the background, after reviews are committed.
+ * Rating changes of a course within one window are summed up in memory, then applied
+ * as a single incremental UPDATE, so review writers never queue on the hot `courses` row.
+ * Deltas live on the node that took the review: a crash loses at most one window,
+ * which the periodic drift rebuild repairs. That rebuild leaves alone courses whose deltas may still be
+ * waiting (here or on another node), else the recount and the delta would both count the same review.
+ */
+@Slf4j
+@Component
+public class RatingRefresher {
+
+    private static final String REBUILD_LOCK = "lock:rating-stats-rebuild";
+
+    /* per course. Values are never modified, only replaced */
+    private final ConcurrentHashMap<Integer, RatingDelta> pending = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value(value = "${rating-stats.refresh-window:PT2S}")
+    private Duration refreshWindow;
+
+    /* only one node runs the drift rebuild */
+    @Value(value = "${rating-stats.rebuild-lock-time:PT10M}")
+    private Duration rebuildLockTime;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReviewChanged(@NotNull ReviewChangedEvent event) {
+        RatingDelta delta = RatingDelta.of(event.getOldRating(), event.getNewRating());
+        pending.merge(event.getCourseId(), delta, RatingDelta::plus);
+    }
+
+    @Scheduled(fixedDelayString = "${rating-stats.refresh-window:PT2S}")
+    public synchronized void refresh() {
+        for (Integer courseId : new ArrayList<>(pending.keySet())) {
+            RatingDelta delta = pending.remove(courseId);
+            if (delta == null) continue;
+            try {
+                transactionTemplate.executeWithoutResult(tx -> {
+                    int updated = courseRepository.addRatingStats(courseId, delta.sum, delta.count,
+                            delta.stars[1], delta.stars[2], delta.stars[3], delta.stars[4], delta.stars[5]);
+                    if (updated == 0) {
+                        courseRepository.rebuildRatingStats(courseId); //totals not built yet: full recount includes these reviews
+                    }
+                    courseService.evictCourse(courseId);
+                });
+            } catch (RuntimeException e) {
+                log.error("Could not refresh rating of course {}, will retry: {}", courseId, e.getMessage());
+                pending.merge(courseId, delta, RatingDelta::plus);
+            }
+        }
+    }
+
+    /**
+     * Rebuild rating totals and star counts of courses that drifted from their reviews
+     * (or never had them, e.g. after upgrade). At startup, then periodically.
+     * Synchronized with {@link #refresh()}, so no delta of this node is applied meanwhile
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${rating-stats.rebuild-interval:PT6H}", initialDelayString = "${rating-stats.rebuild-interval:PT6H}")
+    public synchronized void rebuildDrifted() {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK, "1", rebuildLockTime);
+        if (!Boolean.TRUE.equals(acquired)) return; //another node is on it
+        try {
+            /* a delta waits up to one window, then one more for its UPDATE (or a retry) */
+            Instant settledBefore = Instant.now().minus(refreshWindow.multipliedBy(2));
+            List<Integer> courseIds = courseRepository.findIdsWithDriftedRatingStats(settledBefore);
+            int rebuilt = 0;
+            for (Integer courseId : courseIds) {
+                if (pending.containsKey(courseId)) continue;
+                Integer updated = transactionTemplate.execute(tx -> {
+                    int n = courseRepository.rebuildSettledRatingStats(courseId, settledBefore);
+                    if (n > 0) courseService.evictCourse(courseId);
+                    return n;
+                });
+                if (updated != null && updated > 0) rebuilt++;
+            }
+            if (rebuilt > 0) log.info("Rebuilt rating stats of {} courses", rebuilt);
+        } catch (RuntimeException e) {
+            log.error("Could not rebuild drifted rating stats: {}", e.getMessage());
+        } finally {
+            redisTemplate.delete(REBUILD_LOCK);
+        }
+    }
+
+    @PreDestroy
+    public void refreshOnShutdown() {
+        this.refresh();
+    }
+
+    private static final class RatingDelta {
+        private final long sum;
+        private final int count;
+        /* index 1..5 */
+        private final int[] stars;
+
+        RatingDelta(long sum, int count, int[] stars) {
+            this.sum = sum;
+            this.count = count;
+            this.stars = stars;
+        }
+
+        /* new review: oldRating NULL */
+        static RatingDelta of(Integer oldRating, int newRating) {
+            int[] stars = new int[6];
+            if (newRating >= 1 && newRating <= 5) stars[newRating]++;
+            if (oldRating == null) return new RatingDelta(newRating, 1, stars);
+            if (oldRating >= 1 && oldRating <= 5) stars[oldRating]--;
+            return new RatingDelta(newRating - oldRating, 0, stars);
+        }
+
+        RatingDelta plus(@NotNull RatingDelta other) {
+            int[] total = new int[6];
+            for (int i = 1; i <= 5; i++) total[i] = stars[i] + other.stars[i];
+            return new RatingDelta(sum + other.sum, count + other.count, total);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.User;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Wraps the real gateway (bean "paymentGatewayTarget") so a slow or failing gateway
+ * can't hold up callers:
+ * - calls run on a small dedicated pool (bulkhead). When full, callers are rejected at once
+ * - each call has a timeout. The caller stops waiting, even if the gateway doesn't answer
+ * - a circuit breaker stops calling after too many errors/timeouts, then lets a few trial calls through
+ * Declined payments are normal answers, not errors.
+ */
+@Slf4j
+@Service
+@Primary
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    @Autowired
+    @Qualifier("paymentGatewayTarget")
+    private PaymentGateway target;
+
+    @Autowired
+    @Qualifier("paymentGatewayExecutor")
+    private ThreadPoolTaskExecutor executor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value(value = "${payment.timeout.sale:PT10S}")
+    private Duration saleTimeout;
+
+    @Value(value = "${payment.timeout.client-token:PT3S}")
+    private Duration clientTokenTimeout;
+
+    @Value(value = "${payment.circuit-breaker.failure-rate-threshold:50}")
+    private float failureRateThreshold;
+
+    @Value(value = "${payment.circuit-breaker.window-size:20}")
+    private int windowSize;
+
+    @Value(value = "${payment.circuit-breaker.wait-in-open:PT30S}")
+    private Duration waitInOpen;
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    public void init() {
+        circuitBreaker = CircuitBreaker.of("payment-gateway", CircuitBreakerConfig.custom()
+                .slidingWindowSize(windowSize)
+                .minimumNumberOfCalls(Math.max(1, windowSize / 2))
+                .failureRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(waitInOpen)
+                .permittedNumberOfCallsInHalfOpenState(3)
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            log.warn("Payment gateway circuit {} -> {}", transition.getFromState(), transition.getToState());
+            meterRegistry.counter("payment.gateway.circuit.transitions",
+                    "from", transition.getFromState().name(), "to", transition.getToState().name()).increment();
+        });
+        // 0 closed, 1 open, 2 half-open (see CircuitBreaker.State#getOrder)
+        Gauge.builder("payment.gateway.circuit.state", circuitBreaker, cb -> cb.getState().getOrder())
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generateClientToken() {
+        return this.call("client-token", clientTokenTimeout, target::generateClientToken);
+    }
+
+    @Override
+    public PaymentResult sale(BigDecimal amount, String nonce, User user) {
+        return this.call("sale", saleTimeout, () -> target.sale(amount, nonce, user));
+    }
+
+    private <T> T call(String operation, @NotNull Duration timeout, Callable<T> task) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            this.count(operation, "not-permitted");
+            throw new PaymentUnavailableException("Payment service is unavailable. Nothing was charged, please try again shortly");
+        }
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (TaskRejectedException e) {
+            circuitBreaker.releasePermission();
+            this.count(operation, "rejected");
+            throw new PaymentUnavailableException("Payment service is busy. Nothing was charged, please try again", e);
+        }
+
+        try {
+            T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.count(operation, "success");
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            this.count(operation, "timeout");
+            throw new PaymentUnavailableException("Payment service did not answer in time. " +
+                    "If you were charged, please contact support", e, true);
+        } catch (ExecutionException e) {
+            circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e.getCause());
+            this.count(operation, "error");
+            throw new PaymentUnavailableException("Payment service failed: " + e.getCause().getMessage(), e.getCause(), true);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            circuitBreaker.releasePermission();
+            throw new PaymentUnavailableException("Interrupted while waiting for payment service", e, true);
+        } finally {
+            meterRegistry.timer("payment.gateway.latency", "operation", operation)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("payment.gateway.calls", "operation", operation, "outcome", outcome).increment();
+    }
+}
@@ -3,64 +3,54 @@ package com.davistiba.wedemyserver.service;
 import com.davistiba.wedemyserver.dto.ReviewRequest;
 import com.davistiba.wedemyserver.models.Course;
 import com.davistiba.wedemyserver.models.Review;
+import com.davistiba.wedemyserver.models.ReviewChangedEvent;
 import com.davistiba.wedemyserver.models.User;
-import com.davistiba.wedemyserver.repository.CourseRepository;
 import com.davistiba.wedemyserver.repository.ReviewRepository;
-import com.davistiba.wedemyserver.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-
 @Service
 public class ReviewService {
 
     @Autowired
-    private CourseRepository courseRepository;
+    private ReviewRepository reviewRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private CourseService courseService;
 
     @Autowired
-    private ReviewRepository reviewRepository;
+    private ApplicationEventPublisher eventPublisher;
 
     /**
      * Insert new review.
-     * Then, calculate and update AVG rating for course.
-     * All in single DB transaction
+     * Course rating is refreshed in background, after commit (see {@link RatingRefresher})
      *
      * @param request from frontend
-     * @param userId  userId
+     * @param user    current user
      */
     @Transactional
-    public void addCourseRating(ReviewRequest request, Integer userId) {
-        User user = userRepository.findById(userId).orElseThrow();
-        Course course = courseRepository.findById(request.getCourseId()).orElseThrow();
+    public void addCourseRating(ReviewRequest request, User user) {
+        Course course = courseService.getCourseById(request.getCourseId()).orElseThrow();
         Review myReview = new Review(request.getRating(), request.getContent(), user, course);
         reviewRepository.save(myReview);
-
-        //calculate and update average rating for course.
-        double avgRating = reviewRepository.getAverageByCourseId(course.getId());
-        course.setRating(BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.DOWN));
-        courseRepository.save(course);
+        eventPublisher.publishEvent(new ReviewChangedEvent(this, course.getId(), null, myReview.getRating()));
     }
 
     /**
-     * EDIT existing review, and modify AVG course rating
+     * EDIT existing review. Course rating is refreshed in background, after commit
      */
     @Transactional
     public void updateCourseRating(Integer reviewId, ReviewRequest request) {
         Review myReview = reviewRepository.findById(reviewId).orElseThrow();
-        Course course = courseRepository.findById(request.getCourseId()).orElseThrow();
+        Integer oldRating = myReview.getRating();
+        boolean ratingChanged = !oldRating.equals(request.getRating());
         myReview.setRating(request.getRating());
         myReview.setContent(request.getContent());
         reviewRepository.save(myReview);
-
-        //calculate and update average rating for course.
-        double avgRating = reviewRepository.getAverageByCourseId(course.getId());
-        course.setRating(BigDecimal.valueOf(avgRating).setScale(2, RoundingMode.DOWN));
-        courseRepository.save(course);
+        if (ratingChanged) {
+            eventPublisher.publishEvent(new ReviewChangedEvent(this, myReview.getCourse().getId(), oldRating, myReview.getRating()));
+        }
     }
 }
@@ -0,0 +1,224 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.RollupDimension;
+import com.davistiba.wedemyserver.models.RollupGranularity;
+import com.davistiba.wedemyserver.models.Sales;
+import com.davistiba.wedemyserver.repository.SalesRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Keeps `sales_rollups` up to date: hourly and daily revenue, orders and items sold,
+ * for the whole store, per course and per category.
+ * Each checkout adds to its buckets in the same transaction. Backfill rebuilds whole days from `sales`,
+ * one day per (short, READ COMMITTED) transaction, so it never holds locks that checkouts wait for for long.
+ */
+@Slf4j
+@Service
+public class SalesRollupService {
+
+    private static final String UPSERT_SQL = "INSERT INTO sales_rollups " +
+            "(granularity, dimension, dimension_key, bucket_start, revenue, order_count, items_sold) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), " +
+            "order_count = order_count + VALUES(order_count), items_sold = items_sold + VALUES(items_sold)";
+
+    /* backfill recounts: a bucket a checkout wrote meanwhile is replaced, not a duplicate-key error */
+    private static final String REPLACE_SQL = " ON DUPLICATE KEY UPDATE revenue = VALUES(revenue), " +
+            "order_count = VALUES(order_count), items_sold = VALUES(items_sold)";
+
+    private static final String BACKFILL_LOCK = "lock:sales-rollup-backfill";
+
+    /* first UTC day (yyyy-MM-dd) the startup backfill has not rebuilt yet */
+    private static final String BACKFILLED_UNTIL = "sales-rollup:backfilled-until";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    /* same bucket expression in SELECT and GROUP BY, stored as DATETIME */
+    private static final Map<RollupGranularity, String> BUCKET_SQL = Map.of(
+            RollupGranularity.HOURLY, "DATE_FORMAT(s.created_at, '%Y-%m-%d %H:00:00')",
+            RollupGranularity.DAILY, "DATE_FORMAT(s.created_at, '%Y-%m-%d 00:00:00')");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SalesRollupRepository rollupRepository;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /* only one node runs the startup backfill */
+    @Value(value = "${sales-rollup.backfill-lock-time:PT30M}")
+    private Duration backfillLockTime;
+
+    private TransactionTemplate dayTransaction;
+
+    @PostConstruct
+    public void init() {
+        dayTransaction = new TransactionTemplate(transactionManager);
+        // no shared locks on the sales rows read by INSERT ... SELECT
+        dayTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+    }
+
+    /**
+     * Add one checkout to its hourly and daily buckets.
+     * Must run inside the checkout transaction, so rollups never count an order that rolled back.
+     * TOTAL revenue is amount paid; per course/category revenue is course price.
+     *
+     * @param sale    just saved
+     * @param courses items of this sale
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(@NotNull Sales sale, @NotNull List<Course> courses) {
+        Instant soldAt = sale.getCreatedAt() != null ? sale.getCreatedAt() : Instant.now();
+
+        Map<String, BigDecimal> categoryRevenue = new HashMap<>();
+        Map<String, Integer> categoryItems = new HashMap<>();
+        for (Course course : courses) {
+            categoryRevenue.merge(course.getCategory(), course.getPrice(), BigDecimal::add);
+            categoryItems.merge(course.getCategory(), 1, Integer::sum);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Timestamp bucket = Timestamp.from(granularity.bucketOf(soldAt));
+            rows.add(row(granularity, RollupDimension.TOTAL, "", bucket, sale.getTotalPaid(), courses.size()));
+            for (Course course : courses) {
+                rows.add(row(granularity, RollupDimension.COURSE, course.getId().toString(), bucket, course.getPrice(), 1));
+            }
+            categoryRevenue.forEach((category, revenue) -> rows.add(
+                    row(granularity, RollupDimension.CATEGORY, category, bucket, revenue, categoryItems.get(category))));
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * Rebuild rollups of whole UTC days from `sales`. Replaces existing buckets in range.
+     * Per course/category revenue uses today's course price.
+     * Each day is its own transaction (retried on deadlock), so a failure keeps the days already done.
+     *
+     * @param from first day (inclusive)
+     * @param to   last day (exclusive). Days after today are ignored
+     * @return number of rollup rows written
+     */
+    public int backfill(@NotNull LocalDate from, @NotNull LocalDate to) {
+        LocalDate tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+        if (to.isAfter(tomorrow)) to = tomorrow;
+
+        int written = 0;
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            written += this.backfillDay(day);
+        }
+        return written;
+    }
+
+    /**
+     * Build rollups of days not backfilled yet: after upgrade all existing sales, later only days a previous
+     * run did not finish. Progress is kept in Redis as the first day not yet done, so checkouts recorded
+     * meanwhile never make it skip history. Redis lost: all days are rebuilt again, which is harmless.
+     * Runs on one node only. Never fails startup: on error, the next start resumes (or use /admin/sales/rollups/backfill)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissing() {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(BACKFILL_LOCK, "1", backfillLockTime);
+        if (!Boolean.TRUE.equals(acquired)) return; //another node is on it
+        try {
+            LocalDate from;
+            String done = redisTemplate.opsForValue().get(BACKFILLED_UNTIL);
+            if (done != null) {
+                from = LocalDate.parse(done);
+            } else {
+                Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM sales", Timestamp.class);
+                if (first == null) return; //no sales yet: record() keeps up from now on
+                from = first.toInstant().atZone(ZoneOffset.UTC).toLocalDate();
+            }
+            LocalDate tomorrow = LocalDate.now(ZoneOffset.UTC).plusDays(1);
+            int written = 0;
+            for (LocalDate day = from; day.isBefore(tomorrow); day = day.plusDays(1)) {
+                written += this.backfillDay(day);
+                redisTemplate.opsForValue().set(BACKFILLED_UNTIL, day.plusDays(1).toString());
+            }
+            if (from.isBefore(tomorrow)) log.info("Built {} sales rollups since {}", written, from);
+        } catch (RuntimeException e) {
+            log.error("Could not build sales rollups: {}", e.getMessage());
+        } finally {
+            redisTemplate.delete(BACKFILL_LOCK);
+        }
+    }
+
+    private int backfillDay(@NotNull LocalDate day) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer written = dayTransaction.execute(tx -> this.rebuildDay(day));
+                return written != null ? written : 0;
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == MAX_ATTEMPTS) throw e;
+                log.warn("Backfill of {} hit a lock conflict, retrying: {}", day, e.getMessage());
+            }
+        }
+    }
+
+    private int rebuildDay(@NotNull LocalDate day) {
+        Timestamp start = Timestamp.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+        Timestamp end = Timestamp.from(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        jdbcTemplate.update("DELETE FROM sales_rollups WHERE bucket_start >= ? AND bucket_start < ?", start, end);
+
+        int written = 0;
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            String bucket = BUCKET_SQL.get(granularity);
+            String insert = "INSERT INTO sales_rollups " +
+                    "(granularity, dimension, dimension_key, bucket_start, revenue, order_count, items_sold) ";
+            written += jdbcTemplate.update(insert +
+                    "SELECT ?, 'TOTAL', '', " + bucket + ", SUM(s.total_paid), COUNT(*), COALESCE(SUM(s.num_of_items), 0) " +
+                    "FROM sales s WHERE s.created_at >= ? AND s.created_at < ? GROUP BY " + bucket + REPLACE_SQL,
+                    granularity.name(), start, end);
+            written += jdbcTemplate.update(insert +
+                    "SELECT ?, 'COURSE', CAST(o.course_id AS CHAR), " + bucket + ", SUM(c.price), " +
+                    "COUNT(DISTINCT s.transaction_id), COUNT(*) FROM sales s " +
+                    "INNER JOIN order_items o ON o.transaction_id = s.transaction_id " +
+                    "INNER JOIN courses c ON c.id = o.course_id " +
+                    "WHERE s.created_at >= ? AND s.created_at < ? GROUP BY " + bucket + ", o.course_id" + REPLACE_SQL,
+                    granularity.name(), start, end);
+            written += jdbcTemplate.update(insert +
+                    "SELECT ?, 'CATEGORY', c.category, " + bucket + ", SUM(c.price), " +
+                    "COUNT(DISTINCT s.transaction_id), COUNT(*) FROM sales s " +
+                    "INNER JOIN order_items o ON o.transaction_id = s.transaction_id " +
+                    "INNER JOIN courses c ON c.id = o.course_id " +
+                    "WHERE s.created_at >= ? AND s.created_at < ? GROUP BY " + bucket + ", c.category" + REPLACE_SQL,
+                    granularity.name(), start, end);
+        }
+        return written;
+    }
+
+    @NotNull
+    private static Object[] row(@NotNull RollupGranularity granularity, @NotNull RollupDimension dimension, String key,
+                                Timestamp bucket, BigDecimal revenue, int items) {
+        return new Object[]{granularity.name(), dimension.name(), key, bucket, revenue, 1, items};
+    }
+}
@@ -0,0 +1,65 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.PaymentResult;
+import com.davistiba.wedemyserver.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * In-process stand-in for Braintree (payment.gateway: simulated). No network, no credentials.
+ * For local testing and load tests: each call blocks the calling thread like a real gateway,
+ * for `latency` plus a random 0..`jitter`, and fails at the configured rates.
+ * Nonces starting with "fake-processor-declined" are always declined (as in Braintree sandbox)
+ */
+@Service("paymentGatewayTarget") //<-- wrapped by ResilientPaymentGateway
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "simulated")
+public class SimulatedPaymentGateway implements PaymentGateway {
+
+    @Value(value = "${payment.simulated.latency:PT0.3S}")
+    private Duration latency;
+
+    @Value(value = "${payment.simulated.jitter:PT0.2S}")
+    private Duration jitter;
+
+    /* sales declined, 0.0 - 1.0 */
+    @Value(value = "${payment.simulated.failure-rate:0.0}")
+    private double failureRate;
+
+    /* calls that throw, like a timeout or connection error. 0.0 - 1.0 */
+    @Value(value = "${payment.simulated.error-rate:0.0}")
+    private double errorRate;
+
+    @Override
+    public String generateClientToken() {
+        this.simulateCall();
+        return "fake-client-token";
+    }
+
+    @Override
+    public PaymentResult sale(BigDecimal amount, String nonce, User user) {
+        this.simulateCall();
+        if (nonce.startsWith("fake-processor-declined") || ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return PaymentResult.fail("[Processor declined]");
+        }
+        return PaymentResult.success("fake" + Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE), 36));
+    }
+
+    private void simulateCall() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long millis = latency.toMillis() + (jitter.isZero() ? 0 : random.nextLong(jitter.toMillis() + 1));
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling payment gateway", e);
+        }
+        if (random.nextDouble() < errorRate) {
+            throw new IllegalStateException("Simulated payment gateway error");
+        }
+    }
+}
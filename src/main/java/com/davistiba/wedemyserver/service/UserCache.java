@@ -0,0 +1,62 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.User;
+import com.davistiba.wedemyserver.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived, in-process cache of users by id, for resolving the current user.
+ * Values are detached and shared between requests: read them, don't modify them.
+ * Each node has its own copy, so changes show up elsewhere within user-cache.time-to-live.
+ */
+@Service
+public class UserCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value(value = "${user-cache.time-to-live:PT30S}")
+    private Duration timeToLive;
+
+    @Value(value = "${user-cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<Integer, User> users;
+
+    @PostConstruct
+    public void init() {
+        users = Caffeine.newBuilder().maximumSize(maxSize).expireAfterWrite(timeToLive).build();
+    }
+
+    public Optional<User> get(Integer userId) {
+        if (userId == null) return Optional.empty();
+        return Optional.ofNullable(users.get(userId, id -> userRepository.findById(id).orElse(null)));
+    }
+
+    /**
+     * After user was edited on this node. If called inside a transaction, runs only after commit,
+     * so a concurrent lookup cannot cache the old row again
+     */
+    public void evict(Integer userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            users.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.invalidate(userId);
+            }
+        });
+    }
+}
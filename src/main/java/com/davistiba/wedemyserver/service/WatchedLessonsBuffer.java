@@ -0,0 +1,188 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CourseOutline;
+import com.davistiba.wedemyserver.models.EnrollmentChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for lesson watch events (when progress.write-behind.enabled).
+ * Events are merged per enrollment in memory, then written in JDBC batches on a schedule.
+ * Everything pending is flushed on shutdown. A crash loses at most one flush interval.
+ * Each node buffers its own events, so other nodes see them only after flush.
+ */
+@Slf4j
+@Component
+public class WatchedLessonsBuffer {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String UPDATE_SQL = "UPDATE enrollments SET watched_lessons = ?, watched_count = ?, " +
+            "progress = ?, is_completed = ?, next_position = ?, updated_at = ? WHERE id = ?";
+
+    /* not yet flushed. Values are never modified, only replaced */
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    /* being written right now. Still counted as watched until committed */
+    private final ConcurrentHashMap<Long, Pending> inFlight = new ConcurrentHashMap<>();
+
+    @Value(value = "${progress.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffer one watched lesson
+     *
+     * @param enrollmentId enrollment
+     * @param courseId     course of enrollment
+     * @param position     position of watched lesson
+     */
+    public void add(Long enrollmentId, Integer courseId, int position) {
+        pending.compute(enrollmentId, (id, previous) -> {
+            BitSet watched = previous == null ? new BitSet() : (BitSet) previous.watched.clone();
+            watched.set(position);
+            return new Pending(courseId, watched, position);
+        });
+    }
+
+    /**
+     * Lessons watched but not yet committed to DB
+     */
+    @NotNull
+    public BitSet getUnflushed(Long enrollmentId) {
+        // pending first: flush() copies to inFlight before removing from pending, so we can't miss both
+        BitSet watched = new BitSet();
+        Pending waiting = pending.get(enrollmentId);
+        if (waiting != null) watched.or(waiting.watched);
+        Pending flushing = inFlight.get(enrollmentId);
+        if (flushing != null) watched.or(flushing.watched);
+        return watched;
+    }
+
+    @Scheduled(fixedDelayString = "${progress.write-behind.flush-interval:PT2S}")
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            Map<Long, Pending> batch = new HashMap<>();
+            for (Long id : pending.keySet()) {
+                if (batch.size() == BATCH_SIZE) break;
+                Pending p = pending.get(id);
+                if (p == null) continue;
+                inFlight.put(id, p); //<-- before removing, so readers always see it in one of the two
+                if (!pending.remove(id, p)) {
+                    inFlight.remove(id, p); //replaced meanwhile by a newer one (which includes p). Next round
+                    continue;
+                }
+                batch.put(id, p);
+            }
+            if (batch.isEmpty()) continue; //all replaced meanwhile, take the newer ones
+            try {
+                transactionTemplate.executeWithoutResult(tx -> this.write(batch));
+            } catch (RuntimeException e) {
+                log.error("Could not flush watched lessons of {} enrollments, will retry: {}", batch.size(), e.getMessage());
+                batch.forEach(this::requeue);
+                return;
+            } finally {
+                batch.keySet().forEach(inFlight::remove);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        this.flush();
+        if (!pending.isEmpty()) {
+            log.error("Shutting down with watched lessons of {} enrollments not saved", pending.size());
+        }
+    }
+
+    private void write(@NotNull Map<Long, Pending> batch) {
+        Map<String, Object> params = Collections.singletonMap("ids", batch.keySet());
+        Map<Long, byte[]> current = new HashMap<>();
+        Map<Long, Integer> userIds = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, watched_lessons, user_id FROM enrollments WHERE id IN (:ids) FOR UPDATE",
+                params, rs -> {
+                    current.put(rs.getLong(1), rs.getBytes(2));
+                    userIds.put(rs.getLong(1), rs.getInt(3));
+                });
+
+        // not migrated yet? start from the legacy rows
+        Map<Long, BitSet> legacy = new HashMap<>();
+        if (current.containsValue(null)) {
+            namedJdbcTemplate.query("SELECT ep.enrollment_id, l.position FROM enroll_progress ep " +
+                    "INNER JOIN lessons l ON l.id = ep.lesson_id WHERE ep.enrollment_id IN (:ids)", params, rs -> {
+                legacy.computeIfAbsent(rs.getLong(1), id -> new BitSet()).set(rs.getInt(2));
+            });
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(current.size());
+        current.forEach((id, bits) -> {
+            Pending p = batch.get(id);
+            BitSet watched = bits != null ? BitSet.valueOf(bits) : legacy.getOrDefault(id, new BitSet());
+            int before = watched.cardinality();
+            watched.or(p.watched);
+            if (bits != null && watched.cardinality() == before) return; //nothing new
+
+            CourseOutline outline = courseService.getOutline(p.courseId);
+            boolean isCompleted = outline.isCompletedBy(watched);
+            if (isCompleted && (bits == null || !outline.isCompletedBy(BitSet.valueOf(bits)))) {
+                eventPublisher.publishEvent(new EnrollmentChangedEvent(this, userIds.get(id))); //after commit
+            }
+            rows.add(new Object[]{watched.toByteArray(), watched.cardinality(), outline.progressOf(watched),
+                    isCompleted, isCompleted ? 1 : p.lastPosition + 1, now, id});
+        });
+        jdbcTemplate.batchUpdate(UPDATE_SQL, rows);
+    }
+
+    private void requeue(Long enrollmentId, Pending failed) {
+        pending.merge(enrollmentId, failed, (newer, older) -> {
+            BitSet watched = (BitSet) older.watched.clone();
+            watched.or(newer.watched);
+            return new Pending(newer.courseId, watched, newer.lastPosition);
+        });
+    }
+
+    private static final class Pending {
+        private final Integer courseId;
+        private final BitSet watched;
+        private final int lastPosition;
+
+        Pending(Integer courseId, BitSet watched, int lastPosition) {
+            this.courseId = courseId;
+            this.watched = watched;
+            this.lastPosition = lastPosition;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.repository.EnrollmentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off conversion of `enroll_progress` rows into each enrollment's watched bitset.
+ * Runs at startup and does nothing once all enrollments are converted.
+ * Safe on many nodes at once. Unconverted enrollments are also converted on first use.
+ */
+@Slf4j
+@Component
+public class WatchedLessonsMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private EnrollProgressService progressService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateAll() {
+        long afterId = 0L;
+        int total = 0;
+        List<Long> ids;
+        do {
+            ids = enrollmentRepository.findIdsWithoutWatchedLessons(afterId, PageRequest.ofSize(BATCH_SIZE));
+            for (Long id : ids) {
+                progressService.migrateWatchedLessons(id);
+            }
+            total += ids.size();
+            if (!ids.isEmpty()) afterId = ids.get(ids.size() - 1);
+        } while (ids.size() == BATCH_SIZE);
+
+        if (total > 0) log.info("Migrated watched lessons of {} enrollments", total);
+    }
+}
@@ -0,0 +1,91 @@
+package com.davistiba.wedemyserver.dto;
+
+import com.davistiba.wedemyserver.models.Lesson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+class CourseOutlineTest {
+
+    private CourseOutline outline;
+    private final UUID first = UUID.randomUUID();
+    private final UUID second = UUID.randomUUID();
+    private final UUID third = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        outline = CourseOutline.of(List.of(newLesson(first, 1), newLesson(second, 2), newLesson(third, 4)));
+    }
+
+    @Test
+    void lookupById_Test() {
+        Assertions.assertEquals(3, outline.size());
+        Assertions.assertEquals(2, outline.indexOf(third));
+        Assertions.assertEquals(4, outline.positionAt(2));
+        Assertions.assertEquals(-1, outline.indexOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void watchedBitset_Test() {
+        BitSet watched = new BitSet();
+        Assertions.assertEquals(0, outline.firstNotWatched(watched));
+
+        watched.set(1);
+        watched.set(3); //<-- lesson no longer in course
+        Assertions.assertTrue(outline.isWatched(watched, 0));
+        Assertions.assertEquals(1, outline.firstNotWatched(watched));
+        Assertions.assertEquals(1, outline.countWatched(watched));
+
+        watched.set(2);
+        watched.set(4);
+        BitSet stored = BitSet.valueOf(watched.toByteArray());
+        Assertions.assertEquals(-1, outline.firstNotWatched(stored));
+        Assertions.assertEquals(3, outline.countWatched(stored));
+    }
+
+    @Test
+    void positionLimit_Test() {
+        BitSet watched = new BitSet();
+        watched.set(CourseOutline.MAX_POSITION);
+        Assertions.assertEquals(1024, watched.toByteArray().length);
+        Assertions.assertDoesNotThrow(() -> CourseOutline.of(List.of(newLesson(first, CourseOutline.MAX_POSITION))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> CourseOutline.of(List.of(newLesson(first, CourseOutline.MAX_POSITION + 1))));
+    }
+
+    @Test
+    void withWatchStatus_Test() {
+        BitSet watched = new BitSet();
+        watched.set(2);
+        List<LessonDTO> lessons = outline.withWatchStatus(watched);
+        Assertions.assertEquals(3, lessons.size());
+        Assertions.assertEquals(second.toString(), lessons.get(1).getId());
+        Assertions.assertEquals("07:35", lessons.get(1).getVideoTime());
+        Assertions.assertEquals(List.of(false, true, false),
+                List.of(lessons.get(0).getIsWatched(), lessons.get(1).getIsWatched(), lessons.get(2).getIsWatched()));
+    }
+
+    @Test
+    void lessonJson_Test() throws JsonProcessingException {
+        LessonDTO lesson = outline.withWatchStatus(BitSet.valueOf(new long[]{2L})).get(0);
+        String json = new ObjectMapper().writeValueAsString(lesson);
+        Assertions.assertTrue(json.contains("\"is_watched\":1"), json);
+        Assertions.assertTrue(json.contains("\"video_time\":\"07:35\""), json);
+        Assertions.assertTrue(json.contains("\"lesson_name\":\"1. Lesson\""), json);
+    }
+
+    private static Lesson newLesson(UUID id, int position) {
+        Lesson lesson = new Lesson();
+        lesson.setId(id);
+        lesson.setPosition(position);
+        lesson.setLessonName(position + ". Lesson");
+        lesson.setLengthSeconds(455);
+        return lesson;
+    }
+}
@@ -0,0 +1,67 @@
+package com.davistiba.wedemyserver.dto;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+class CursorPageTest {
+
+    @Test
+    void roundTrip_Test() {
+        Instant createdAt = Instant.parse("2023-04-01T10:15:30Z");
+        String cursor = CursorPage.encode("createdAt", createdAt, 42);
+        Object[] keys = CursorPage.decode(cursor, 3, k -> new Object[]{k[0], Instant.parse(k[1]), Integer.valueOf(k[2])});
+        Assertions.assertArrayEquals(new Object[]{"createdAt", createdAt, 42}, keys);
+    }
+
+    @Test
+    void emptyCursorIsFirstPage_Test() {
+        Assertions.assertNull(CursorPage.decode(null, 3, k -> k));
+        Assertions.assertNull(CursorPage.decode(" ", 3, k -> k));
+    }
+
+    @Test
+    void valuesWithSeparator_Test() {
+        String cursor = CursorPage.encode("a|b", "c\\", "|");
+        String[] keys = CursorPage.decode(cursor, 3, k -> k);
+        Assertions.assertArrayEquals(new String[]{"a|b", "c\\", "|"}, keys);
+    }
+
+    @Test
+    void malformedBase64_Test() {
+        assertBadRequest(() -> CursorPage.decode("not*base64!", 3, k -> k));
+    }
+
+    @Test
+    void wrongKeyCount_Test() {
+        assertBadRequest(() -> CursorPage.decode(CursorPage.encode("rating", 5), 3, k -> k));
+        assertBadRequest(() -> CursorPage.decode(CursorPage.encode("rating", 5, 7, 9), 3, k -> k));
+    }
+
+    @Test
+    void unparsableKey_Test() {
+        String cursor = CursorPage.encode("rating", "five", 7);
+        assertBadRequest(() -> CursorPage.decode(cursor, 3, k -> Integer.valueOf(k[1])));
+        String dangling = Base64.getUrlEncoder().withoutPadding().encodeToString("a|b|c\\".getBytes());
+        assertBadRequest(() -> CursorPage.decode(dangling, 3, k -> k));
+    }
+
+    @Test
+    void ofUsesExtraRowForNextCursor_Test() {
+        CursorPage<Integer> last = CursorPage.of(List.of(1, 2), 2, r -> new Object[]{r});
+        Assertions.assertFalse(last.isHasNext());
+        CursorPage<Integer> page = CursorPage.of(List.of(1, 2, 3), 2, r -> new Object[]{"id", r});
+        Assertions.assertEquals(List.of(1, 2), page.getContent());
+        Assertions.assertEquals("2", CursorPage.decode(page.getNextCursor(), 2, k -> k[1]));
+    }
+
+    private static void assertBadRequest(Runnable decode) {
+        ResponseStatusException e = Assertions.assertThrows(ResponseStatusException.class, decode::run);
+        Assertions.assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+    }
+}
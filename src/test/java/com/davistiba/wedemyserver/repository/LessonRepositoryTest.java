@@ -4,11 +4,10 @@ import com.davistiba.wedemyserver.models.Lesson;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.RepeatedTest;
-import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
-import java.util.Optional;
+import java.util.List;
 
 @SpringBootTest
 @Disabled
@@ -18,14 +17,9 @@ class LessonRepositoryTest {
     private LessonRepository lessonRepository;
 
     @RepeatedTest(3)
-    void getFirstNotWatchedByCourseId_Test() {
-        Optional<Lesson> optionalLesson = lessonRepository.getFirstNotWatchedInEnrollment(2L, 10012);
-        Assertions.assertTrue(optionalLesson.isPresent());
-    }
-
-    @Test
-    void getAllMyWatchedLessons_Test() {
-        var lessonList = lessonRepository.getWatchStatusListByEnrollment(2L, 10013);
-        Assertions.assertEquals(10, lessonList.size());
+    void getAllByCourseId_Test() {
+        List<Lesson> lessons = lessonRepository.getAllByCourseId(10012);
+        Assertions.assertFalse(lessons.isEmpty());
+        Assertions.assertEquals(1, lessons.get(0).getPosition());
     }
 }
\ No newline at end of file
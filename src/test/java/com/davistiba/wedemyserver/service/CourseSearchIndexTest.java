@@ -0,0 +1,54 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.models.Course;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class CourseSearchIndexTest {
+
+    private CourseSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new CourseSearchIndex();
+        searchIndex.index(newCourse(10010, "Complete Python Bootcamp", "Corey Schafer", "Development"));
+        searchIndex.index(newCourse(10012, "Java Programming Essentials", "Caleb Curry", "Development"));
+        searchIndex.index(newCourse(10015, "Crash Course Economics", "Jacob Clifford", "Finance"));
+    }
+
+    @Test
+    void searchExactAndRanked_Test() {
+        List<Integer> results = searchIndex.search("development");
+        Assertions.assertEquals(List.of(10010, 10012), results);
+        Assertions.assertEquals(List.of(10012), searchIndex.search("java essentials"));
+    }
+
+    @Test
+    void searchPrefixAndTypo_Test() {
+        Assertions.assertEquals(List.of(10010), searchIndex.search("pyth"));
+        Assertions.assertEquals(List.of(10010), searchIndex.search("pyhton"));
+        Assertions.assertEquals(List.of(10015), searchIndex.search("econmics"));
+    }
+
+    @Test
+    void reindexAndRemove_Test() {
+        searchIndex.index(newCourse(10010, "Complete Rust Bootcamp", "Corey Schafer", "Development"));
+        Assertions.assertTrue(searchIndex.search("python").isEmpty());
+        Assertions.assertEquals(List.of(10010), searchIndex.search("rust"));
+
+        searchIndex.remove(10015);
+        Assertions.assertTrue(searchIndex.search("economics").isEmpty());
+    }
+
+    private static Course newCourse(Integer id, String title, String author, String category) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        course.setAuthor(author);
+        course.setCategory(category);
+        return course;
+    }
+}
@@ -0,0 +1,93 @@
+package com.davistiba.wedemyserver.service;
+
+import com.davistiba.wedemyserver.dto.CourseCountDTO;
+import com.davistiba.wedemyserver.dto.CourseSuggestion;
+import com.davistiba.wedemyserver.models.Course;
+import com.davistiba.wedemyserver.models.CourseChangedEvent;
+import com.davistiba.wedemyserver.repository.CourseRepository;
+import com.davistiba.wedemyserver.repository.EnrollmentRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+class CourseSuggesterTest {
+
+    private CourseSuggester suggester;
+    private CourseRepository courseRepository;
+    private final List<Course> courses = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        courses.add(newCourse(10010, "Complete Python Bootcamp"));
+        courses.add(newCourse(10012, "Java Programming Essentials"));
+        courses.add(newCourse(10015, "Python for Data Science"));
+        courses.add(newCourse(10020, "Learn Java the Hard Way"));
+        courses.add(newCourse(10030, "Python Basics"));
+
+        courseRepository = Mockito.mock(CourseRepository.class);
+        Mockito.when(courseRepository.findAll()).thenAnswer(i -> List.copyOf(courses));
+        EnrollmentRepository enrollmentRepository = Mockito.mock(EnrollmentRepository.class);
+        Mockito.when(enrollmentRepository.countAllGroupByCourse()).thenReturn(List.of(
+                new CourseCountDTO(10010, 50L), new CourseCountDTO(10015, 900L), new CourseCountDTO(10020, 75L)));
+
+        suggester = new CourseSuggester();
+        ReflectionTestUtils.setField(suggester, "courseRepository", courseRepository);
+        ReflectionTestUtils.setField(suggester, "enrollmentRepository", enrollmentRepository);
+        suggester.rebuild();
+    }
+
+    @Test
+    void prefixLookup_Test() {
+        Assertions.assertEquals(List.of(10012), ids("java prog", 10));
+        Assertions.assertEquals(List.of(10012), ids("  JAVA  Prog", 10)); //normalized like titles
+        Assertions.assertEquals(List.of(10015), ids("data sc", 10)); //word inside title
+        Assertions.assertTrue(ids("rust", 10).isEmpty());
+        Assertions.assertTrue(ids(" ", 10).isEmpty());
+        Assertions.assertEquals("Python for Data Science", suggester.suggest("data", 10).get(0).getTitle());
+    }
+
+    @Test
+    void rankedByStartThenEnrollments_Test() {
+        // titles starting with it, most enrolled first (10030 has none). Then titles with it as a later word
+        Assertions.assertEquals(List.of(10015, 10030, 10010), ids("python", 10));
+        // "java" starts 10012 (0 enrollments), only a later word of 10020 (75)
+        Assertions.assertEquals(List.of(10012, 10020), ids("java", 10));
+        Assertions.assertEquals(List.of(10012), ids("java", 1));
+    }
+
+    @Test
+    void rebuildOnTitleChange_Test() {
+        Course renamed = newCourse(10012, "Kotlin Programming Essentials");
+        courses.set(1, renamed);
+        Mockito.when(courseRepository.findById(10012)).thenReturn(Optional.of(renamed));
+        suggester.onCourseChanged(new CourseChangedEvent(this, 10012));
+
+        Assertions.assertEquals(List.of(10012), ids("kotlin", 10));
+        Assertions.assertEquals(List.of(10020), ids("java", 10));
+    }
+
+    @Test
+    void noRebuildIfTitleSame_Test() {
+        Mockito.when(courseRepository.findById(10012)).thenReturn(Optional.of(newCourse(10012, "Java Programming Essentials")));
+        suggester.onCourseChanged(new CourseChangedEvent(this, 10012));
+        Mockito.verify(courseRepository, Mockito.times(1)).findAll(); //only the initial build
+    }
+
+    private List<Integer> ids(String prefix, int limit) {
+        return suggester.suggest(prefix, limit).stream().map(CourseSuggestion::getId).collect(Collectors.toList());
+    }
+
+    private static Course newCourse(Integer id, String title) {
+        Course course = new Course();
+        course.setId(id);
+        course.setTitle(title);
+        return course;
+    }
+}
@@ -0,0 +1,28 @@
+package com.davistiba.wedemyserver.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+class ExportServiceTest {
+
+    @Test
+    void csvLinePlainValues_Test() {
+        String line = ExportService.csvLine(new Object[]{12, "Java Essentials", new BigDecimal("19.99")});
+        Assertions.assertEquals("12,Java Essentials,19.99\r\n", line);
+    }
+
+    @Test
+    void csvLineQuotesSpecialValues_Test() {
+        Assertions.assertEquals("\"Python, Beginner\",x\r\n", ExportService.csvLine(new Object[]{"Python, Beginner", "x"}));
+        Assertions.assertEquals("\"The \"\"Best\"\" Course\"\r\n", ExportService.csvLine(new Object[]{"The \"Best\" Course"}));
+        Assertions.assertEquals("\"line1\nline2\",\"a\rb\"\r\n", ExportService.csvLine(new Object[]{"line1\nline2", "a\rb"}));
+    }
+
+    @Test
+    void csvLineNullIsEmpty_Test() {
+        Assertions.assertEquals("1,,3\r\n", ExportService.csvLine(new Object[]{1, null, 3}));
+        Assertions.assertEquals(",\r\n", ExportService.csvLine(new Object[]{null, null}));
+    }
+}